@@ -0,0 +1,45 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mine layout of a new board ({@code MinesSweeper.setupBoard}) at every level and on dense custom boards
+ * (the largest custom size, 35x20). Every invocation lays out a fresh game with a new seed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardSetupBenchmark {
+    @Param({"BEGINNER", "INTERMEDIATE", "EXPERT", "35x20x200", "35x20x450"})
+    public String board;
+
+    private long   seed;
+    private Object game;
+
+    @Setup(Level.Invocation)
+    public void newGame() {
+        game = Engine.newGame(board, seed++);
+    }
+
+    @Benchmark
+    public Object setupBoard() {
+        Engine.setupBoard(game);
+        return game;
+    }
+}
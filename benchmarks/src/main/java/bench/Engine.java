@@ -0,0 +1,134 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Typed access to the game's BenchmarkHooks. The game lives in the default package, which Java code in a named
+ * package cannot name, so every hook is bound once to a static final method handle; the JIT inlines them like
+ * direct calls.
+ */
+final class Engine {
+    private static final MethodHandles.Lookup HOOKS;
+    static {
+        try {
+            HOOKS = MethodHandles.privateLookupIn(Class.forName("BenchmarkHooks"), MethodHandles.lookup());
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final MethodHandle NEW_LEVEL_GAME   = hook("newGame", Object.class, String.class, long.class);
+    private static final MethodHandle NEW_GAME         = hook("newGame", Object.class, int.class, int.class, int.class, long.class);
+    private static final MethodHandle SETUP_BOARD      = hook("setupBoard", void.class, Object.class);
+    private static final MethodHandle OPEN_CELL        = hook("openCell", boolean.class, Object.class, int.class, int.class);
+    private static final MethodHandle CHORD_BOARD      = hook("chordBoard", Object.class, int.class, int.class, int.class, long.class);
+    private static final MethodHandle CHORD_ALL        = hook("chordAll", int.class, Object.class);
+    private static final MethodHandle RGB              = hook("rgb", String.class, int.class, int.class, int.class, boolean.class);
+    private static final MethodHandle CELL_GLYPH       = hook("cellGlyph", String.class, Object.class, int.class, int.class);
+    private static final MethodHandle EXPLOSION_FRAMES = hook("explosionFrames", List.class, int.class, int.class, int.class, int.class);
+    private static final MethodHandle DISPLAY_BOARD    = hook("displayBoard", void.class, Object.class);
+
+    private Engine() {}
+
+    private static MethodHandle hook(String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            return HOOKS.findStatic(HOOKS.lookupClass(), name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * A game of a level name ({@code BEGINNER}, {@code INTERMEDIATE}, {@code EXPERT}) or of a custom size {@code WxHxM}.
+     */
+    static Object newGame(String board, long seed) {
+        String[] size = board.split("x");
+        if (size.length == 3) return newGame(Integer.parseInt(size[0]), Integer.parseInt(size[1]), Integer.parseInt(size[2]), seed);
+        try {
+            return (Object) NEW_LEVEL_GAME.invokeExact(board, seed);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object newGame(int width, int height, int mines, long seed) {
+        try {
+            return (Object) NEW_GAME.invokeExact(width, height, mines, seed);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void setupBoard(Object game) {
+        try {
+            SETUP_BOARD.invokeExact(game);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static boolean openCell(Object game, int row, int col) {
+        try {
+            return (boolean) OPEN_CELL.invokeExact(game, row, col);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object chordBoard(int width, int height, int mines, long seed) {
+        try {
+            return (Object) CHORD_BOARD.invokeExact(width, height, mines, seed);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static int chordAll(Object game) {
+        try {
+            return (int) CHORD_ALL.invokeExact(game);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static String rgb(int r, int g, int b, boolean background) {
+        try {
+            return (String) RGB.invokeExact(r, g, b, background);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static String cellGlyph(Object game, int row, int col) {
+        try {
+            return (String) CELL_GLYPH.invokeExact(game, row, col);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static List<?> explosionFrames(int rows, int cols, int bombRow, int bombCol) {
+        try {
+            return (List<?>) EXPLOSION_FRAMES.invokeExact(rows, cols, bombRow, bombCol);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void displayBoard(Object game) {
+        try {
+            DISPLAY_BOARD.invokeExact(game);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException runtime) return runtime;
+        if (e instanceof Error error) throw error;
+        return new IllegalStateException(e);
+    }
+}
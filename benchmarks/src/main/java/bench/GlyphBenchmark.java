@@ -0,0 +1,53 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The strings every drawn cell is made of: {@code AppTexts.Colors.rgb} escape codes, and the glyph of every cell
+ * of an expert board half way through a game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlyphBenchmark {
+    private static final int WIDTH = 30, HEIGHT = 16;
+
+    private Object game;
+    private int    color;
+
+    @Setup
+    public void playHalfGame() {
+        game = Engine.chordBoard(WIDTH, HEIGHT, 99, 42);
+    }
+
+    @Benchmark
+    public String rgb() {
+        int c = color++;
+        return Engine.rgb(c & 0xFF, (c >>> 8) & 0xFF, (c >>> 16) & 0xFF, (c & 1) == 0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void boardGlyphs(Blackhole blackhole) {
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                blackhole.consume(Engine.cellGlyph(game, row, col));
+            }
+        }
+    }
+}
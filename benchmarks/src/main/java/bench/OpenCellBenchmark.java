@@ -0,0 +1,61 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code MinesSweeper.openCell} where it does the most work: one click flooding an almost empty board, and chords
+ * on every revealed number of a board whose mines are all flagged.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenCellBenchmark {
+    private static final int WIDTH = 35, HEIGHT = 20;
+
+    @State(Scope.Thread)
+    public static class FloodBoard {
+        long   seed;
+        Object game;
+
+        @Setup(Level.Invocation)
+        public void layOut() {
+            game = Engine.newGame(WIDTH, HEIGHT, 10, seed++);
+            Engine.setupBoard(game);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ChordBoard {
+        long   seed;
+        Object game;
+
+        @Setup(Level.Invocation)
+        public void prepare() {
+            game = Engine.chordBoard(WIDTH, HEIGHT, 150, seed++);
+        }
+    }
+
+    @Benchmark
+    public boolean floodFill(FloodBoard board) {
+        return Engine.openCell(board.game, HEIGHT / 2, WIDTH / 2);
+    }
+
+    @Benchmark
+    public int chords(ChordBoard board) {
+        return Engine.chordAll(board.game);
+    }
+}
@@ -0,0 +1,65 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Drawing frames into a null stream, so only the cost of building and writing them is measured: the whole board
+ * ({@code MinesSweeper.displayBoard}) and the frames of the explosion animation ({@code Utils.explosion}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+    @Param({"30x16x99", "35x20x150"})
+    public String board;
+
+    private PrintStream console;
+    private Object      game;
+    private int         rows, cols;
+
+    @Setup
+    public void prepare() {
+        String[] size = board.split("x");
+        int width = Integer.parseInt(size[0]), height = Integer.parseInt(size[1]), mines = Integer.parseInt(size[2]);
+        game = Engine.chordBoard(width, height, mines, 42);
+        rows = height;
+        cols = width * 3;   // CELL_CHARACTER_SIZE
+
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void restoreConsole() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public Object fullBoard() {
+        Engine.displayBoard(game);
+        return game;
+    }
+
+    @Benchmark
+    public Object explosionFrames() {
+        return Engine.explosionFrames(rows, cols, rows / 2, cols / 2);
+    }
+}
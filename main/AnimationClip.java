@@ -0,0 +1,133 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * An animation rendered once into the bytes of its frames, to be played any number of times without computing them.
+ * <p>
+ * Frames are deltas: each one holds only what changes on screen since the one before, passed through the
+ * {@link AnsiOptimizer} and encoded in the charset of {@code System.out}. They are stored end to end in one array, so
+ * that a run of frames is a single slice, and each frame is held for a time of its own. Playing goes through a
+ * {@link FramePacer}: a frame the terminal would not show in time is held back and written along with the next one, so
+ * the screen ends the same and the clip keeps its length.
+ * <p>
+ * Clips are compiled by the animations themselves with a {@link Builder}, and cached by {@link AnimationClipCache}
+ * under a {@link Key}.
+ */
+public final class AnimationClip {
+    /**
+     * What a clip depends on besides its name: the board it is drawn around and the colors of the terminal.
+     * Animations that do not depend on the board use a size of 0.
+     */
+    public record Key(String animation, int width, int height, ColorDepth depth) {
+        public static Key of(String animation) {
+            return new Key(animation, 0, 0, AppTexts.Colors.DEPTH);
+        }
+
+        public static Key of(String animation, int width, int height) {
+            return new Key(animation, width, height, AppTexts.Colors.DEPTH);
+        }
+    }
+
+    private final byte[] bytes;
+    private final int[]  ends;        // where each frame ends in bytes
+    private final long[] dueMillis;   // when the frame after each one is due, from the start of the clip
+
+    private AnimationClip(byte[] bytes, int[] ends, long[] dueMillis) {
+        this.bytes = bytes;
+        this.ends = ends;
+        this.dueMillis = dueMillis;
+    }
+
+    /**
+     * Plays the clip on {@code System.out}, returning when its last frame has been held.
+     */
+    public void play() {
+        FramePacer pacer = new FramePacer();
+        int from = 0;                  // start of the frames not written yet
+        for (int i = 0; i < ends.length; i++) {
+            if (pacer.show(bytes, from, ends[i] - from, dueMillis[i], i == ends.length - 1)) from = ends[i];
+            pacer.sleepUntil(dueMillis[i]);
+        }
+    }
+
+    public int frames() {
+        return ends.length;
+    }
+
+    /**
+     * Bytes of all the frames.
+     */
+    public int size() {
+        return bytes.length;
+    }
+
+    /**
+     * How long the clip plays, in milliseconds.
+     */
+    public long durationMillis() {
+        return ends.length == 0 ? 0 : dueMillis[ends.length - 1];
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(ends.length);
+        for (int i = 0; i < ends.length; i++) {
+            out.writeInt(ends[i]);
+            out.writeLong(dueMillis[i]);
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static AnimationClip read(DataInputStream in) throws IOException {
+        int frames = in.readInt();
+        if (frames < 0) throw new IOException("Corrupt clip");
+        int[]  ends      = new int[frames];
+        long[] dueMillis = new long[frames];
+        for (int i = 0; i < frames; i++) {
+            ends[i] = in.readInt();
+            dueMillis[i] = in.readLong();
+            if (ends[i] < (i == 0 ? 0 : ends[i - 1]) || dueMillis[i] < (i == 0 ? 0 : dueMillis[i - 1])) throw new IOException("Corrupt clip");
+        }
+        byte[] bytes = new byte[in.readInt()];
+        if (frames > 0 && ends[frames - 1] != bytes.length) throw new IOException("Corrupt clip");
+        in.readFully(bytes);
+        return new AnimationClip(bytes, ends, dueMillis);
+    }
+
+    /**
+     * Collects the frames of a clip. Each frame is given as the output that draws it on top of the previous ones.
+     */
+    public static final class Builder {
+        private final AnsiOptimizer         optimizer = new AnsiOptimizer();
+        private final Charset               charset   = System.out.charset();
+        private final ByteArrayOutputStream bytes     = new ByteArrayOutputStream();
+        private int[]                       ends      = new int[16];
+        private long[]                      dueMillis = new long[16];
+        private int                         frames;
+        private long                        time;
+
+        /**
+         * Adds a frame, shown for {@code holdMillis} before the next one.
+         */
+        public Builder frame(CharSequence frame, long holdMillis) {
+            if (frames == ends.length) {
+                ends = Arrays.copyOf(ends, frames * 2);
+                dueMillis = Arrays.copyOf(dueMillis, frames * 2);
+            }
+            bytes.writeBytes(optimizer.optimize(frame).getBytes(charset));
+            time += holdMillis;
+            ends[frames] = bytes.size();
+            dueMillis[frames] = time;
+            frames++;
+            return this;
+        }
+
+        public AnimationClip build() {
+            return new AnimationClip(bytes.toByteArray(), Arrays.copyOf(ends, frames), Arrays.copyOf(dueMillis, frames));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Compiled {@link AnimationClip}s, kept in memory by least recent use up to {@link Config.Display#CLIP_CACHE_BYTES},
+ * and on disk in {@link Config.Display#CLIP_DIRECTORY} so that the next runs do not compile them again.
+ * <p>
+ * A clip on disk is named after the hash of its key, and holds the key, the charset it was encoded in and a hash of
+ * the texts and coordinates the animations draw from ({@link AppTexts}, {@link Config.MineSweeper.Coordinates}): a file
+ * written for another key or charset, from other texts or coordinates, from an older version, or unreadable, is
+ * compiled again and overwritten.
+ */
+public class AnimationClipCache {
+    private static final int MAGIC   = 0x4D53434C;   // "MSCL"
+    private static final int VERSION = 2;
+    private static final int SOURCE  = sourceHash(AppTexts.Colors.class, AppTexts.MinesSweeper.class,
+            AppTexts.Utils.loadingAnimation.class, Config.MineSweeper.Coordinates.class);
+
+    private static final AnimationClipCache SHARED = new AnimationClipCache(Config.Display.CLIP_CACHE_BYTES,
+            Config.Display.CLIP_DIRECTORY.isEmpty() ? null : Path.of(Config.Display.CLIP_DIRECTORY));
+
+    private final long capacityBytes;
+    private final Path directory;   // null to keep clips in memory only
+    private final LinkedHashMap<AnimationClip.Key, AnimationClip> clips = new LinkedHashMap<>(16, 0.75f, true);
+    private long       sizeBytes;
+    private long       hits, loads, compiles;
+
+    public AnimationClipCache(long capacityBytes, Path directory) {
+        this.capacityBytes = capacityBytes;
+        this.directory = directory;
+    }
+
+    /**
+     * The cache of the game's animations.
+     */
+    public static AnimationClipCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the clip of {@code key}, from memory, from disk, or compiled by {@code compile} and saved.
+     */
+    public synchronized AnimationClip get(AnimationClip.Key key, Supplier<AnimationClip> compile) {
+        AnimationClip clip = clips.get(key);
+        if (clip != null) {
+            hits++;
+            return clip;
+        }
+        clip = load(key);
+        if (clip != null) {
+            loads++;
+        } else {
+            clip = compile.get();
+            compiles++;
+            save(key, clip);
+        }
+        put(key, clip);
+        return clip;
+    }
+
+    private void put(AnimationClip.Key key, AnimationClip clip) {
+        clips.put(key, clip);
+        sizeBytes += clip.size();
+        Iterator<Map.Entry<AnimationClip.Key, AnimationClip>> eldest = clips.entrySet().iterator();
+        while (sizeBytes > capacityBytes && clips.size() > 1) {
+            Map.Entry<AnimationClip.Key, AnimationClip> entry = eldest.next();
+            sizeBytes -= entry.getValue().size();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * A hash of the static fields of {@code sources} and of the cell width, by name so that it does not depend on the
+     * order reflection lists them in.
+     */
+    private static int sourceHash(Class<?>... sources) {
+        CRC32C crc = new CRC32C();
+        for (Class<?> source : sources) {
+            Field[] fields = source.getDeclaredFields();
+            Arrays.sort(fields, Comparator.comparing(Field::getName));
+            for (Field field : fields) {
+                if (!Modifier.isStatic(field.getModifiers()) || !field.trySetAccessible()) continue;
+                try {
+                    String value = Arrays.deepToString(new Object[] {field.get(null)});
+                    crc.update((field.getName() + '=' + value + '\n').getBytes(StandardCharsets.UTF_8));
+                } catch (IllegalAccessException _) {
+                    // trySetAccessible said it could be read
+                }
+            }
+        }
+        crc.update(Config.MineSweeper.CELL_CHARACTER_SIZE);
+        return (int) crc.getValue();
+    }
+
+    private Path fileOf(AnimationClip.Key key) {
+        // the enum's own hash changes from run to run, its name does not
+        String name = key.animation() + '/' + key.width() + 'x' + key.height() + '/' + key.depth().name();
+        return directory.resolve(String.format("%08x.clip", name.hashCode()));
+    }
+
+    private AnimationClip load(AnimationClip.Key key) {
+        if (directory == null) return null;
+        Path path = fileOf(key);
+        if (!Files.exists(path)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != SOURCE) return null;
+            if (!in.readUTF().equals(key.animation()) || in.readInt() != key.width() || in.readInt() != key.height()
+                    || !in.readUTF().equals(key.depth().name()) || !in.readUTF().equals(System.out.charset().name())) {
+                return null;
+            }
+            return AnimationClip.read(in);
+        } catch (IOException _) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the clip to disk if there is a directory. Failing is harmless, it is compiled again next time.
+     */
+    private void save(AnimationClip.Key key, AnimationClip clip) {
+        if (directory == null) return;
+        Path path = fileOf(key);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(SOURCE);
+                out.writeUTF(key.animation());
+                out.writeInt(key.width());
+                out.writeInt(key.height());
+                out.writeUTF(key.depth().name());
+                out.writeUTF(System.out.charset().name());
+                clip.write(out);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException _) {
+            // compiled again next time
+        }
+    }
+
+    /**
+     * Clips found in memory.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Clips read from disk.
+     */
+    public synchronized long loads() {
+        return loads;
+    }
+
+    public synchronized long compiles() {
+        return compiles;
+    }
+
+    /**
+     * Bytes of the clips in memory.
+     */
+    public synchronized long sizeBytes() {
+        return sizeBytes;
+    }
+}
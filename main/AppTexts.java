@@ -2,6 +2,7 @@ public class AppTexts {
     /**
      * Class for handling ANSI color codes using RGB values.
      * Supports foreground and background modes, with common color presets.
+     * Colors are written for the terminal's {@link ColorDepth}, fixed when the texts are first used.
      */
     public static final class Colors{
         /**
@@ -13,17 +14,20 @@ public class AppTexts {
             FG, BG
         }
         
+        public static final ColorDepth DEPTH = ColorDepth.configured();
+
         /**
          * Generates an ANSI escape code for setting text or background color using RGB values.
+         * Terminals without truecolor get the nearest color they support.
          *
          * @param r     the red component (0–255)
          * @param g     the green component (0–255)
          * @param b     the blue component (0–255)
          * @param mode  the mode specifying foreground (FG) or background (BG) color
-         * @return      the ANSI escape code string for the specified color and mode
+         * @return      the shortest ANSI escape code for the specified color and mode at {@link #DEPTH}
          */
         public static String rgb(int r, int g, int b, Mode mode){
-            return String.format("\033[%d;2;%d;%d;%dm", (mode == Colors.Mode.BG ? 48 : 38), r, g, b);
+            return DEPTH.sgr(r, g, b, mode == Mode.BG);
         }
 
         public static final String REVERSE_COLOR = "\033[7m";
@@ -57,7 +61,7 @@ public class AppTexts {
                                                               "                                        /_/             ";
         public static final String   WELCOME_MESSAGE        = Colors.rgb(255, 0  , 0  , Colors.Mode.FG) + "Welcome to MineSweeper game!" + Colors.RESET_COLOR;
         public static final String   MENU_SELECT_DIFFICULTY = Colors.rgb(100, 149, 237, Colors.Mode.FG) + "Select an option to start the game. (Enter 'q' ro quit): " + Colors.RESET_COLOR;
-        public static final String[] MENU_OPTIONS           = {"Beginner", "Intermediate", "Expert", "Custom"};
+        public static final String[] MENU_OPTIONS           = {"Beginner", "Intermediate", "Expert", "Custom", "Resume suspended game"};
         public static final String   MENU_OPTION_FORMAT     = Colors.rgb(255, 69, 0, Colors.Mode.FG) + "%d. " + Colors.rgb(120, 81, 169, Colors.Mode.FG) + "%s" + Colors.RESET_COLOR;
 
         // User Stats Format
@@ -72,7 +76,39 @@ public class AppTexts {
                 "║ Games Quit     :%7d       ║\n" +
                 "║                               ║\n" +
                 "║ Total Time Played:%4dm %2ds   ║\n" +
+                "╠═══════════════════════════════╣\n" +
+                "║ Level     Won/Played   Best   ║\n" +
+                "║ %-10s%5d/%-6d %6s ║\n" +
+                "║ %-10s%5d/%-6d %6s ║\n" +
+                "║ %-10s%5d/%-6d %6s ║\n" +
+                "║ %-10s%5d/%-6d %6s ║\n" +
                 "╚═══════════════════════════════╝";
+        public static final String   TIMING_STATUS_COLOR    = Colors.rgb(135, 206, 235, Colors.Mode.FG);
+        public static final String   TIMING_STATUS_FORMAT   =
+                "╔════════════════════════════════════╗\n" +
+                "║       SOLVE TIME PERCENTILES       ║\n" +
+                "╠════════════════════════════════════╣\n" +
+                "║ Level          p50     p90     p99 ║\n" +
+                "║ %-10s%8s%8s%8s ║\n" +
+                "║ %-10s%8s%8s%8s ║\n" +
+                "║ %-10s%8s%8s%8s ║\n" +
+                "║ %-10s%8s%8s%8s ║\n" +
+                "╠════════════════════════════════════╣\n" +
+                "║  THINK TIME PER MOVE PERCENTILES   ║\n" +
+                "╠════════════════════════════════════╣\n" +
+                "║ Level          p50     p90     p99 ║\n" +
+                "║ %-10s%8s%8s%8s ║\n" +
+                "║ %-10s%8s%8s%8s ║\n" +
+                "║ %-10s%8s%8s%8s ║\n" +
+                "║ %-10s%8s%8s%8s ║\n" +
+                "╚════════════════════════════════════╝";
+        public static final String   SECONDS_FORMAT         = "%.1fs";
+        public static final String[] USER_STATUS_LEVELS     = {"Beginner", "Intermed.", "Expert", "Custom"};
+        public static final String   BEST_TIME_FORMAT       = "%dm%02ds";
+        public static final String   NO_BEST_TIME           = "-";
+        public static final String   LAST_RANK_FORMAT       = Colors.rgb(50, 205, 50, Colors.Mode.FG) + "Last win: #%d of %d on the %s leaderboard" + Colors.RESET_COLOR;
+        public static final String   EVENT_METRICS_FORMAT   = Colors.rgb(255, 165, 0, Colors.Mode.FG) + "Events dropped: %d of %d, blocked: %d, failed batches: %d, max lag: %d" + Colors.RESET_COLOR;
+        public static final String   OUTPUT_METRICS_FORMAT  = Colors.rgb(255, 165, 0, Colors.Mode.FG) + "Output waits: %d, discarded: %d B, failed writes: %d, deepest queue: %d buffers, slowest write: %.1f ms" + Colors.RESET_COLOR;
 
         // Input Prompts
         public static final String   EnterRow                 = Colors.rgb(100, 149, 237, Colors.Mode.FG) + "Enter number of rows (Minimum %d, Maximum %d) or 'q' to quit: "    + Colors.RESET_COLOR;
@@ -83,16 +119,37 @@ public class AppTexts {
         // Game Time and Mines Left Format
         public static final String   LEVEL_INFO_FORMAT_FORMAT = Colors.rgb(80 , 255, 200, Colors.Mode.FG) + "Level: "       + Colors.rgb(255, 100, 100, Colors.Mode.FG) + "%s"           + Colors.RESET_COLOR;
         public static final String   TIME_FORMAT              = Colors.rgb(80 , 255, 200, Colors.Mode.FG) + "Time: "        + Colors.rgb(255, 100, 100, Colors.Mode.FG) + "%d:%02d:%02d" + Colors.RESET_COLOR;
+        public static final String   GENERATION_INFO_FORMAT   = Colors.rgb(80 , 255, 200, Colors.Mode.FG) + "3BV: "         + Colors.rgb(255, 100, 100, Colors.Mode.FG) + "%d"           + Colors.rgb(120, 120, 120, Colors.Mode.FG) + " (%,d layouts sampled, %,.0f/s)" + Colors.RESET_COLOR;
         public static final String   MINES_LEFT_FORMAT        = Colors.rgb(80 , 255, 200, Colors.Mode.FG) + "Mines left: "  + Colors.rgb(255, 100, 100, Colors.Mode.FG) + "%d"           + Colors.RESET_COLOR;
 
         // Input Prompt
-        public static final String   INPUT_PROMPT             = Colors.rgb(100, 149, 237, Colors.Mode.FG) + "Press 'q' to quit or 'h' for help.\nEnter your move (row col): " + Colors.RESET_COLOR;
+        public static final String   INPUT_PROMPT             = Colors.rgb(100, 149, 237, Colors.Mode.FG) + "Press 'q' to quit, 's' to suspend, 'h' for help, 'p' for performance or 'a' to auto-resolve.\nEnter your move (row col): " + Colors.RESET_COLOR;
+
+        public static final String   KEY_PROMPT               = Colors.rgb(100, 149, 237, Colors.Mode.FG) + "Arrows move the cursor, Space or Enter opens, 'c' chords on a number, 'f' flags.\n'a' auto-resolves, 's' suspends, 'h' shows help, 'p' shows performance, 'q' quits, ':' types moves." + Colors.RESET_COLOR;
 
         // Error Messages
         public static final String   WRONG_OPTION_ERROR       = Colors.WHITE_FG + Colors.RED_BG + "Oops! Invalid option." + Colors.RESET_COLOR;
         public static final String   INVALID_INPUT_FORMAT     = Colors.WHITE_FG + Colors.RED_BG + "Invalid input format!" + Colors.RESET_COLOR;
         public static final String   ROW_OUT_OF_RANGE         = Colors.WHITE_FG + Colors.RED_BG + "Row out of range!"     + Colors.RESET_COLOR;
+        public static final String   NO_SUSPENDED_GAME        = Colors.WHITE_FG + Colors.RED_BG + "There is no suspended game to resume." + Colors.RESET_COLOR;
+        public static final String   SUSPEND_FAILED           = Colors.WHITE_FG + Colors.RED_BG + "The game could not be saved!" + Colors.RESET_COLOR;
         public static final String   COL_OUT_OF_RANGE         = Colors.WHITE_FG + Colors.RED_BG + "Column out of range!"  + Colors.RESET_COLOR;
+        // Performance HUD, see PerformanceHud; plain text, its lines are padded to the same width
+        public static final String   HUD_COLOR  = Colors.rgb(230, 230, 230, Colors.Mode.FG) + Colors.rgb(40, 44, 52, Colors.Mode.BG);
+        public static final String   HUD_FORMAT =
+                " Performance, last %d moves          'p' hides \n" +
+                " key to frame   %8.1f ms  p99 %8.1f ms \n" +
+                " output/move    %,8d B    %,8d escapes \n" +
+                " openCell       %8.2f ms  max %8.2f ms \n" +
+                " setupBoard     %8.1f ms \n" +
+                " animation      %8.1f fps %,8d dropped \n" +
+                " output queued  %,8d B    %,8d waits \n" +
+                " allocation     %8.1f MB/s \n" +
+                " threads        %8d ";
+
+        // plain text, cut to the width of the terminal, see ScreenMirror#resize
+        public static final String   TERMINAL_TOO_SMALL_FORMAT = "The terminal is too small, the game needs %d rows and %d columns.";
+        public static final String   TERMINAL_TOO_SMALL_COLOR  = Colors.WHITE_FG + Colors.RED_BG;
 
 
         // Helper Information
@@ -110,6 +167,16 @@ public class AppTexts {
                 "\t\t" + command_color + "f row col" + Colors.RESET_COLOR + "\n\t\tExample: f 2 3 flags the cell at row 2, column 3.\n\t\tUse the same command to unflagging a cell.\n\n" +
                 "\t" + subtitle_color + "Opening a Cell" + Colors.RESET_COLOR + ":\n" +
                 "\t\t" + command_color + "v row col" + Colors.RESET_COLOR + " or " + command_color + "row col" + Colors.RESET_COLOR + "\n\t\tExample: " + command_color + "2 3" + Colors.RESET_COLOR + " opens the cell at row 2, column 3.\n\n" +
+                "\t" + subtitle_color + "Keyboard" + Colors.RESET_COLOR + ":\n" +
+                "\t\tIn terminals that support it, move the highlighted cell with the arrow keys and press\n\t\t" + command_color + "Space" + Colors.RESET_COLOR + " to open, " + command_color + "f" + Colors.RESET_COLOR + " to flag or " + command_color + "c" + Colors.RESET_COLOR + " to chord on a number, without Enter.\n\t\tWith a mouse: left click opens, right click flags, middle click chords.\n\n" +
+                "\t" + subtitle_color + "Several Moves at Once" + Colors.RESET_COLOR + ":\n" +
+                "\t\t" + command_color + "f 3 4; 5 6; 7 8" + Colors.RESET_COLOR + "\n\t\tSeparate moves with ';' to play them in order, as a single move.\n\n" +
+                "\t" + subtitle_color + "Auto-Resolve" + Colors.RESET_COLOR + ":\n" +
+                "\t\t" + command_color + "a" + Colors.RESET_COLOR + "\n\t\tOpens every cell proven safe and flags every cell proven to be a mine,\n\t\tuntil nothing more can be deduced. Your flags are trusted, so check them first.\n\n" +
+                "\t" + subtitle_color + "Suspend the Game" + Colors.RESET_COLOR + ":\n" +
+                "\t\t" + command_color + "s" + Colors.RESET_COLOR + "\n\t\tSaves the game and returns to the menu. Pick \"Resume suspended game\" to continue it later.\n\n" +
+                "\t" + subtitle_color + "Performance" + Colors.RESET_COLOR + ":\n" +
+                "\t\t" + command_color + "p" + Colors.RESET_COLOR + "\n\t\tShows or hides live figures in the top right corner: time from a key to the screen, output per move,\n\t\tanimation frame rate, memory allocation and threads.\n\n" +
                 "\t" + subtitle_color + "Quit the Game" + Colors.RESET_COLOR + ":\n" +
                 "\t\tTo quit the game, enter the command:\n\t\t" + command_color + "q"  + Colors.RESET_COLOR +  "\n\n" +
                 title_color + "Special Rules:\n" + Colors.RESET_COLOR +
@@ -137,6 +204,37 @@ public class AppTexts {
 
         // Inside the Grid
         public static final String FLAG                     = Colors.RED_FG + Colors.ORANGE_BG + " F " + Colors.RESET_COLOR;
+        // Cells are drawn all the time, their colors are only looked up once
+        private static final String   CURSOR_CELL_COLOR     = Colors.BLACK_FG + Colors.rgb(255, 215, 0, Colors.Mode.BG);
+        private static final String[] COVERED_CELLS         = {             // by checkerboard square, see checker()
+                Colors.rgb(30,30,50,Colors.Mode.BG)  + " - " + Colors.RESET_COLOR,
+                Colors.rgb(60,60,90,Colors.Mode.BG)  + " - " + Colors.RESET_COLOR,
+                Colors.rgb(90,90,120,Colors.Mode.BG) + " - " + Colors.RESET_COLOR};
+        private static final String[] REVEALED_CELL_BGS     = {Colors.BLACK_BG, Colors.rgb(17,17,17,Colors.Mode.BG), Colors.rgb(30,30,30,Colors.Mode.BG)};
+        private static final String[] DIGITS                = {
+                "   ",
+                Colors.BLUE_FG                             + " 1 " + Colors.RESET_COLOR,
+                Colors.rgb(0, 123, 0, Colors.Mode.FG)     + " 2 " + Colors.RESET_COLOR,
+                Colors.RED_FG                              + " 3 " + Colors.RESET_COLOR,
+                Colors.rgb(0, 0, 123, Colors.Mode.FG)     + " 4 " + Colors.RESET_COLOR,
+                Colors.rgb(123, 0, 0, Colors.Mode.FG)     + " 5 " + Colors.RESET_COLOR,
+                Colors.rgb(0, 123, 123, Colors.Mode.FG)   + " 6 " + Colors.RESET_COLOR,
+                Colors.BLACK_FG                            + " 7 " + Colors.RESET_COLOR,
+                Colors.rgb(123, 123, 123, Colors.Mode.FG) + " 8 " + Colors.RESET_COLOR};
+
+        /**
+         * The square of the board's checkerboard a cell is on: 0 when both row and column are even, 2 when both are odd, 1 otherwise.
+         */
+        private static int checker(int row, int col){
+            return row%2 == 1 && col%2 == 1 ? 2 : row%2 == 0 && col%2 == 0 ? 0 : 1;
+        }
+
+        /**
+         * Returns the highlighted cell under the keyboard cursor, showing the given character.
+         */
+        public static       String CURSOR_CELL              (char c){
+            return CURSOR_CELL_COLOR + " " + c + " " + Colors.RESET_COLOR;
+        }
         /**
          * Returns the ANSI-colored string representation of a covered cell based on its position.
          * Applies a checkerboard-like pattern by varying background colors depending on the row and column parity.
@@ -146,14 +244,7 @@ public class AppTexts {
          * @return a string representing the cell with a specific background color
          */
         public static       String COVERED_CELL             (int row, int col){
-            if (row%2 == 1 && col%2 == 1){
-                return Colors.rgb(90,90,120, Colors.Mode.BG) + " - " + Colors.RESET_COLOR;
-            }else if (col%2 == 0 && row%2 == 0) {
-                return Colors.rgb(30,30,50,Colors.Mode.BG) + " - " + Colors.RESET_COLOR;
-            }else{
-                return Colors.rgb(60,60,90,Colors.Mode.BG) + " - " + Colors.RESET_COLOR;
-            }
-
+            return COVERED_CELLS[checker(row, col)];
         }
         /**
          * Returns the ANSI background color code for a revealed cell based on its position.
@@ -164,13 +255,7 @@ public class AppTexts {
          * @return the ANSI escape code string for the background color
          */
         public static       String REVEALED_CELL_BG         (int row, int col){
-            if (row%2 == 1 && col%2 == 1){
-                return Colors.rgb(30,30,30,Colors.Mode.BG);
-            }else if (col%2 == 0 && row%2 == 0) {
-                return Colors.BLACK_BG;
-            }else{
-                return Colors.rgb(17,17,17,Colors.Mode.BG);
-            }
+            return REVEALED_CELL_BGS[checker(row, col)];
         }
         /**
          * Formats a digit character with its corresponding ANSI foreground color code.
@@ -180,18 +265,7 @@ public class AppTexts {
          * @return a formatted string with color applied, or empty string for invalid characters
          */
         public static       String DIGIT_FORMAT             (char c) {
-            return switch (c) {
-                case '0' -> "   ";
-                case '1' -> Colors.BLUE_FG + " 1 " + Colors.RESET_COLOR;
-                case '2' -> Colors.rgb(0, 123, 0, Colors.Mode.FG) + " 2 " + Colors.RESET_COLOR;
-                case '3' -> Colors.RED_FG + " 3 " + Colors.RESET_COLOR;
-                case '4' -> Colors.rgb(0, 0, 123, Colors.Mode.FG) + " 4 " + Colors.RESET_COLOR;
-                case '5' -> Colors.rgb(123, 0, 0, Colors.Mode.FG) + " 5 " + Colors.RESET_COLOR;
-                case '6' -> Colors.rgb(0, 123, 123, Colors.Mode.FG) + " 6 " + Colors.RESET_COLOR;
-                case '7' -> Colors.BLACK_FG + " 7 " + Colors.RESET_COLOR;
-                case '8' -> Colors.rgb(123, 123, 123, Colors.Mode.FG) + " 8 " + Colors.RESET_COLOR;
-                default -> "";
-            };
+            return c >= '0' && c <= '8' ? DIGITS[c - '0'] : "";
         }
         public static final String EXPLODED_BOMB            = Colors.BLACK_FG + Colors.RED_BG + " X " + Colors.RESET_COLOR;
         public static final String HIDDEN_BOMB              = Colors.RED_FG + Colors.rgb(20,10,10,Colors.Mode.BG) + " * " + Colors.RESET_COLOR;
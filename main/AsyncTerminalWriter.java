@@ -0,0 +1,307 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Writes the terminal output on a thread of its own, so that the game never waits for a slow terminal.
+ * <p>
+ * Once {@link #install() installed}, what is printed on {@code System.out} is copied into direct buffers taken from a
+ * fixed pool ({@link Config.Display#OUTPUT_BUFFERS} of {@link Config.Display#OUTPUT_BUFFER_SIZE} bytes) and printing
+ * returns. The writer thread takes the buffers filled so far, up to a quarter of the pool, and hands them to stdout's
+ * channel in one gathering write; output printed meanwhile fills the next buffers and goes out with the next writes.
+ * <p>
+ * When every buffer is waiting for the terminal, {@link Config.Display#OUTPUT_OVERFLOW} decides: {@link Overflow#BLOCK}
+ * waits for a buffer to be written, {@link Overflow#DISCARD} throws the output away, and keeps throwing it away until
+ * the terminal has written everything before it, so that what it shows next does not depend on what was lost. The game
+ * then redraws its screen, see {@link #takeDiscarded()}.
+ */
+public class AsyncTerminalWriter extends OutputStream {
+    public enum Overflow {
+        BLOCK, DISCARD;
+
+        public static Overflow configured() {
+            return Config.Display.OUTPUT_OVERFLOW.equalsIgnoreCase("discard") ? DISCARD : BLOCK;
+        }
+    }
+
+    private static volatile AsyncTerminalWriter installed;
+
+    private final FileChannel            channel;
+    private final Overflow               overflow;
+    private final int                    bufferSize;
+    private final ReentrantLock          lock    = new ReentrantLock();
+    private final Condition              filled  = lock.newCondition();   // output waits to be written
+    private final Condition              written = lock.newCondition();   // buffers came back to the pool
+    private final ArrayDeque<ByteBuffer> pool;
+    private final ArrayDeque<ByteBuffer> pending;
+    private final ByteBuffer[]           gather;
+    private ByteBuffer                   current;         // being filled, taken by the writer as it is
+    private boolean                      discarding, discarded;
+
+    // metrics, guarded by the lock
+    private final LogHistogram writeNanos = new LogHistogram();
+    private long               queuedBytes, writtenBytes, discardedBytes, blocked, failedWrites;
+    private int                maxQueuedBuffers;
+
+    public AsyncTerminalWriter(FileChannel channel, int buffers, int bufferSize, Overflow overflow) {
+        this.channel  = channel;
+        this.overflow = overflow;
+        this.bufferSize = bufferSize;
+        this.pool     = new ArrayDeque<>(buffers);
+        this.pending  = new ArrayDeque<>(buffers);
+        this.gather   = new ByteBuffer[Math.max(1, buffers / 4)];   // buffers come back while the rest is written
+        for (int i = 0; i < buffers; i++) pool.add(ByteBuffer.allocateDirect(bufferSize));
+
+        Thread thread = new Thread(this::run, "terminal-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Sends {@code System.out} through a writer of stdout, unless {@link Config.Display#ASYNC_OUTPUT} is off. The output
+     * still waiting at exit is written, for up to {@link Config.Display#OUTPUT_DRAIN_MILLIS}.
+     *
+     * @return the writer, or null if output stays synchronous
+     */
+    public static synchronized AsyncTerminalWriter install() {
+        if (installed != null || !Config.Display.ASYNC_OUTPUT) return installed;
+        PrintStream stdout = System.out;
+        stdout.flush();
+        AsyncTerminalWriter writer = new AsyncTerminalWriter(new FileOutputStream(FileDescriptor.out).getChannel(),
+                Config.Display.OUTPUT_BUFFERS, Config.Display.OUTPUT_BUFFER_SIZE, Overflow.configured());
+        System.setOut(new PrintStream(writer, false, stdout.charset()));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writer.drain(Config.Display.OUTPUT_DRAIN_MILLIS)));
+        installed = writer;
+        return writer;
+    }
+
+    /**
+     * The writer behind {@code System.out}, or null.
+     */
+    public static AsyncTerminalWriter installed() {
+        return installed;
+    }
+
+    /**
+     * Tells whether output was discarded since the last call, in which case the screen is not what was printed.
+     */
+    public static boolean takeDiscarded() {
+        AsyncTerminalWriter writer = installed;
+        if (writer == null) return false;
+        writer.lock.lock();
+        try {
+            boolean discarded = writer.discarded;
+            writer.discarded = false;
+            return discarded;
+        } finally {
+            writer.lock.unlock();
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        lock.lock();
+        try {
+            // a print is discarded whole, the terminal never gets the start of a sequence without its end
+            if (overflow == Overflow.DISCARD && (discarding || length > room())) {
+                discarding = discarded = true;
+                discardedBytes += length;
+                return;
+            }
+            while (length > 0) {
+                if (current == null) current = takeBuffer();
+                int count = Math.min(length, current.remaining());
+                current.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+                queuedBytes += count;
+                if (!current.hasRemaining()) {
+                    pending.add(current);
+                    current = null;
+                }
+            }
+            filled.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long room() {
+        return (current == null ? 0 : current.remaining()) + (long) pool.size() * bufferSize;
+    }
+
+    /**
+     * Takes a buffer from the pool, waiting for the writer to give one back if they are all in use.
+     */
+    private ByteBuffer takeBuffer() {
+        if (pool.isEmpty()) blocked++;
+        while (pool.isEmpty()) {
+            filled.signal();   // the buffers filled by this very print may be the ones to write
+            written.awaitUninterruptibly();
+        }
+        return pool.poll();
+    }
+
+    /**
+     * Does nothing: the output is already on its way, see {@link #drain} to wait for it.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Waits until everything printed so far is written.
+     *
+     * @return false if the time ran out first
+     */
+    public boolean drain(long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        lock.lock();
+        try {
+            while (queuedBytes > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return false;
+                written.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            int count = 0;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && (current == null || current.position() == 0)) {
+                    discarding = false;   // all caught up, the next output starts on a clean terminal
+                    filled.awaitUninterruptibly();
+                }
+                if (current != null && current.position() > 0) {
+                    pending.add(current);
+                    current = null;
+                }
+                maxQueuedBuffers = Math.max(maxQueuedBuffers, pending.size());
+                while (!pending.isEmpty() && count < gather.length) gather[count++] = pending.poll().flip();
+            } finally {
+                lock.unlock();
+            }
+
+            long bytes = 0, start = System.nanoTime();
+            for (int i = 0; i < count; i++) bytes += gather[i].remaining();
+            boolean failed = false;
+            try {
+                for (long left = bytes; left > 0; ) left -= channel.write(gather, 0, count);
+            } catch (IOException _) {
+                failed = true;   // stdout is gone, like PrintStream the output is lost without a word
+            }
+            long nanos = System.nanoTime() - start;
+
+            lock.lock();
+            try {
+                for (int i = 0; i < count; i++) {
+                    pool.add(gather[i].clear());
+                    gather[i] = null;
+                }
+                queuedBytes -= bytes;
+                if (failed) {
+                    failedWrites++;
+                } else {
+                    writtenBytes += bytes;
+                    writeNanos.record(nanos);
+                }
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (!failed) FramePacer.recordWrite(nanos, bytes);
+        }
+    }
+
+    /**
+     * Bytes printed and not yet written, 0 if there is no writer installed.
+     */
+    public static long queued() {
+        AsyncTerminalWriter writer = installed;
+        return writer == null ? 0 : writer.queuedBytes();
+    }
+
+    /**
+     * Bytes printed and not yet written.
+     */
+    public long queuedBytes() {
+        return locked(() -> queuedBytes);
+    }
+
+    /**
+     * Most buffers ever taken by one write, which is how deep the queue got.
+     */
+    public int maxQueuedBuffers() {
+        return (int) locked(() -> maxQueuedBuffers);
+    }
+
+    public long writtenBytes() {
+        return locked(() -> writtenBytes);
+    }
+
+    /**
+     * Times printing had to wait for a buffer, with {@link Overflow#BLOCK}.
+     */
+    public long blocked() {
+        return locked(() -> blocked);
+    }
+
+    /**
+     * Bytes thrown away, with {@link Overflow#DISCARD}.
+     */
+    public long discardedBytes() {
+        return locked(() -> discardedBytes);
+    }
+
+    /**
+     * Writes that failed, their output is lost.
+     */
+    public long failedWrites() {
+        return locked(() -> failedWrites);
+    }
+
+    /**
+     * A copy of the time taken by each write to stdout, in nanoseconds.
+     */
+    public LogHistogram writeLatency() {
+        LogHistogram copy = new LogHistogram();
+        lock.lock();
+        try {
+            copy.merge(writeNanos);
+        } finally {
+            lock.unlock();
+        }
+        return copy;
+    }
+
+    private long locked(LongSupplier metric) {
+        lock.lock();
+        try {
+            return metric.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
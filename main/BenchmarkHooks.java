@@ -0,0 +1,102 @@
+import java.util.List;
+
+/**
+ * Entry points for the JMH benchmarks in the {@code benchmarks} module.
+ * <p>
+ * JMH does not accept benchmarks in the default package, and a class in a named package cannot name a class of the
+ * default package, so the benchmarks bind to these static methods with method handles. Games are passed as Object.
+ */
+final class BenchmarkHooks {
+    private BenchmarkHooks() {}
+
+    /**
+     * A headless game of a predefined level ({@code BEGINNER}, {@code INTERMEDIATE} or {@code EXPERT}), not set up yet.
+     */
+    static Object newGame(String level, long seed) {
+        return switch (MinesSweeper.Level.valueOf(level)) {
+            case BEGINNER     -> newGame(Config.MineSweeper.BEGINNER_WIDTH, Config.MineSweeper.BEGINNER_HEIGHT, Config.MineSweeper.BEGINNER_MINES, seed);
+            case INTERMEDIATE -> newGame(Config.MineSweeper.INTERMEDIATE_WIDTH, Config.MineSweeper.INTERMEDIATE_HEIGHT, Config.MineSweeper.INTERMEDIATE_MINES, seed);
+            case EXPERT       -> newGame(Config.MineSweeper.EXPERT_WIDTH, Config.MineSweeper.EXPERT_HEIGHT, Config.MineSweeper.EXPERT_MINES, seed);
+            case CUSTOM       -> throw new IllegalArgumentException("Custom games need a size");
+        };
+    }
+
+    static Object newGame(int width, int height, int mines, long seed) {
+        return MinesSweeper.headless(width, height, mines, seed);
+    }
+
+    /**
+     * Lays the mines of a new game out for a first click in the middle of the board, without opening anything.
+     */
+    static void setupBoard(Object game) {
+        MinesSweeper minesSweeper = (MinesSweeper) game;
+        minesSweeper.layOut(minesSweeper.height() / 2, minesSweeper.width() / 2);
+    }
+
+    static boolean openCell(Object game, int row, int col) {
+        return ((MinesSweeper) game).openCell(row, col);
+    }
+
+    /**
+     * A game ready for chording: opened in the middle, every mine flagged, and every other numbered cell revealed
+     * in a checkerboard pattern. {@link #chordAll} then opens the rest of the board through the numbers.
+     */
+    static Object chordBoard(int width, int height, int mines, long seed) {
+        MinesSweeper game = MinesSweeper.headless(width, height, mines, seed);
+        game.openCell(height / 2, width / 2);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if (game.checkMine(row, col)) game.markFlag(row, col);
+            }
+        }
+        for (int row = 0; row < height; row++) {
+            for (int col = (row & 1); col < width; col += 2) {
+                if (!game.checkMine(row, col) && !game.isRevealed(row, col) && hasMineNeighbour(game, row, col)) game.openCell(row, col);
+            }
+        }
+        return game;
+    }
+
+    private static boolean hasMineNeighbour(MinesSweeper game, int row, int col) {
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, game.height() - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, game.width() - 1); j++) {
+                if (game.checkMine(i, j)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Chords on every revealed number of the board.
+     *
+     * @return the number of cells still covered
+     */
+    static int chordAll(Object game) {
+        MinesSweeper minesSweeper = (MinesSweeper) game;
+        for (int row = 0; row < minesSweeper.height(); row++) {
+            for (int col = 0; col < minesSweeper.width(); col++) {
+                if (minesSweeper.revealedNumber(row, col) > 0) minesSweeper.openCell(row, col);
+            }
+        }
+        return minesSweeper.coveredCount();
+    }
+
+    static String rgb(int r, int g, int b, boolean background) {
+        return AppTexts.Colors.rgb(r, g, b, background ? AppTexts.Colors.Mode.BG : AppTexts.Colors.Mode.FG);
+    }
+
+    static String cellGlyph(Object game, int row, int col) {
+        return ((MinesSweeper) game).cellGlyph(row, col);
+    }
+
+    static List<List<String>> explosionFrames(int rows, int cols, int bombRow, int bombCol) {
+        return Utils.explosionFrames(rows, cols, new int[]{bombCol, bombRow});
+    }
+
+    /**
+     * Draws the whole board on {@code System.out}, without the reveal animation delay.
+     */
+    static void displayBoard(Object game) {
+        ((MinesSweeper) game).displayBoard(0);
+    }
+}
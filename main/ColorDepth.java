@@ -0,0 +1,105 @@
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The colors a terminal can show, and how a color of {@link AppTexts} is written for it.
+ * <p>
+ * Colors are picked as 24-bit RGB. Terminals without truecolor get the nearest color of the xterm 256-color palette
+ * (its 6x6x6 cube and gray ramp, which themes leave alone) or of the 16 standard colors. Truecolor terminals are also
+ * sent a palette index when it is exactly the same color, since it is shorter.
+ */
+public enum ColorDepth {
+    TRUECOLOR, COLORS_256, COLORS_16;
+
+    // xterm's defaults for the 16 standard colors; themes change them, so they are only used when nothing better is supported
+    private static final int[] STANDARD_COLORS = {
+            0x000000, 0xCD0000, 0x00CD00, 0xCDCD00, 0x0000EE, 0xCD00CD, 0x00CDCD, 0xE5E5E5,
+            0x7F7F7F, 0xFF0000, 0x00FF00, 0xFFFF00, 0x5C5CFF, 0xFF00FF, 0x00FFFF, 0xFFFFFF};
+    private static final int[] CUBE_LEVELS = {0, 95, 135, 175, 215, 255};
+    private static final int[] PALETTE = new int[256];
+
+    static {
+        System.arraycopy(STANDARD_COLORS, 0, PALETTE, 0, 16);
+        for (int i = 0; i < 216; i++) {
+            PALETTE[16 + i] = CUBE_LEVELS[i / 36] << 16 | CUBE_LEVELS[i / 6 % 6] << 8 | CUBE_LEVELS[i % 6];
+        }
+        for (int i = 0; i < 24; i++) {
+            int gray = 8 + 10 * i;
+            PALETTE[232 + i] = gray << 16 | gray << 8 | gray;
+        }
+    }
+
+    /**
+     * The depth set by {@link Config.Display#COLOR_DEPTH}, or detected from the environment when it is empty.
+     */
+    public static ColorDepth configured() {
+        return switch (Config.Display.COLOR_DEPTH.toLowerCase(Locale.ROOT)) {
+            case "truecolor", "24bit" -> TRUECOLOR;
+            case "256"                -> COLORS_256;
+            case "16"                 -> COLORS_16;
+            default                   -> detect(System.getenv());
+        };
+    }
+
+    /**
+     * Guesses the depth from {@code COLORTERM} and {@code TERM}, as terminals advertise it.
+     */
+    public static ColorDepth detect(Map<String, String> environment) {
+        String colorTerm = environment.getOrDefault("COLORTERM", "").toLowerCase(Locale.ROOT);
+        String term      = environment.getOrDefault("TERM", "").toLowerCase(Locale.ROOT);
+        if (colorTerm.equals("truecolor") || colorTerm.equals("24bit") || term.endsWith("-direct")) return TRUECOLOR;
+        if (term.contains("256color")) return COLORS_256;
+        return COLORS_16;
+    }
+
+    /**
+     * Returns the shortest SGR sequence setting the foreground or background to the given color, or its nearest
+     * match at this depth.
+     */
+    public String sgr(int r, int g, int b, boolean background) {
+        int rgb = r << 16 | g << 8 | b;
+        int base = background ? 40 : 30;
+        return switch (this) {
+            case TRUECOLOR -> {
+                int index = exactIndex(rgb);
+                yield index >= 0 ? "\033[" + (base + 8) + ";5;" + index + "m"
+                                 : "\033[" + (base + 8) + ";2;" + r + ';' + g + ';' + b + 'm';
+            }
+            case COLORS_256 -> "\033[" + (base + 8) + ";5;" + nearest(rgb, 16, 256) + "m";
+            case COLORS_16  -> {
+                int index = nearest(rgb, 0, 16);
+                yield "\033[" + (index < 8 ? base + index : base + 60 + index - 8) + "m";
+            }
+        };
+    }
+
+    /**
+     * The index of the cube or gray ramp color equal to {@code rgb}, or -1.
+     */
+    private static int exactIndex(int rgb) {
+        for (int i = 16; i < 256; i++) {
+            if (PALETTE[i] == rgb) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * The palette index in {@code [from, to)} closest to {@code rgb}, by the "redmean" weighted distance, which is close
+     * to how different colors look at a fraction of the cost of a perceptual color space.
+     */
+    static int nearest(int rgb, int from, int to) {
+        int r = rgb >> 16 & 0xFF, g = rgb >> 8 & 0xFF, b = rgb & 0xFF;
+        int best = from;
+        long bestDistance = Long.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            int dr = r - (PALETTE[i] >> 16 & 0xFF), dg = g - (PALETTE[i] >> 8 & 0xFF), db = b - (PALETTE[i] & 0xFF);
+            int redMean = (r + (PALETTE[i] >> 16 & 0xFF)) / 2;
+            long distance = (long) (512 + redMean) * dr * dr + 1024L * dg * dg + (long) (767 - redMean) * db * db;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+
+/**
+ * Single-pass tokenizer for the commands typed during a MinesSweeper game, replacing per-call regular expressions.
+ * <pre>
+ * line    : segment (';' segment)*
+ * segment : ['f' | 'v'] row col  |  'a'  |  'h' | 'p' | 'q' | 's'     (case-insensitive, blanks between tokens)
+ * </pre>
+ * A line can hold several moves ({@code f 3 4; 5 6; 7 8}), which the game applies as one batch.
+ * 'h', 'q' and 's' leave the board and 'p' shows or hides the performance HUD, so they are only accepted alone on
+ * their line. Empty segments are ignored.
+ * <p>
+ * The parser owns its {@link Command} objects and reuses them on every call, so parsing allocates nothing
+ * once the longest line seen so far has been parsed.
+ */
+public class CommandParser {
+    /**
+     * One parsed command. Row and column are 0-based, and only set for 'v' and 'f'.
+     */
+    public static final class Command {
+        char mode;
+        int  row, col;
+    }
+
+    private Command[] commands = new Command[4];
+    private int       count;
+    private int       position;
+
+    public CommandParser() {
+        for (int i = 0; i < commands.length; i++) commands[i] = new Command();
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public Command get(int index) {
+        return commands[index];
+    }
+
+    /**
+     * Replaces the parsed commands with a single one, for input that does not come from a line (e.g. key presses).
+     */
+    public CommandParser set(char mode, int row, int col) {
+        Command command = commands[0];
+        command.mode = mode;
+        command.row = row;
+        command.col = col;
+        count = 1;
+        return this;
+    }
+
+    /**
+     * Parses a line into this parser's commands.
+     *
+     * @return false if the line is not well-formed; the commands are then undefined
+     */
+    public boolean parse(CharSequence line) {
+        count = 0;
+        position = 0;
+        while (true) {
+            skipBlanks(line);
+            if (position < line.length() && line.charAt(position) != ';' && !parseSegment(line)) return false;
+            skipBlanks(line);
+            if (position == line.length()) break;
+            if (line.charAt(position++) != ';') return false;
+        }
+
+        // commands that leave the board cannot be mixed with moves
+        if (count > 1) {
+            for (int i = 0; i < count; i++) {
+                char mode = commands[i].mode;
+                if (mode == 'h' || mode == 'p' || mode == 'q' || mode == 's') return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean parseSegment(CharSequence line) {
+        char first = Character.toLowerCase(line.charAt(position));
+        Command command = next();
+        if (first == 'h' || first == 'p' || first == 'q' || first == 's' || first == 'a') {
+            position++;
+            command.mode = first;
+            return atSegmentEnd(line);
+        }
+
+        command.mode = 'v';
+        if (first == 'f' || first == 'v') {
+            command.mode = first;
+            position++;
+            if (skipBlanks(line) == 0) return false;
+        }
+        command.row = parseNumber(line) - 1;
+        if (command.row < -1 || skipBlanks(line) == 0) return false;
+        command.col = parseNumber(line) - 1;
+        return command.col >= -1 && atSegmentEnd(line);
+    }
+
+    private Command next() {
+        if (count == commands.length) {
+            commands = Arrays.copyOf(commands, count * 2);
+            for (int i = count; i < commands.length; i++) commands[i] = new Command();
+        }
+        return commands[count++];
+    }
+
+    /**
+     * Reads an unsigned decimal number, saturating at {@code Integer.MAX_VALUE}.
+     *
+     * @return the number, or -1 if there is no digit at the current position
+     */
+    private int parseNumber(CharSequence line) {
+        int start = position;
+        long value = 0;
+        while (position < line.length() && line.charAt(position) >= '0' && line.charAt(position) <= '9') {
+            value = Math.min(Integer.MAX_VALUE, value * 10 + (line.charAt(position++) - '0'));
+        }
+        return position == start ? -1 : (int) value;
+    }
+
+    private int skipBlanks(CharSequence line) {
+        int start = position;
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) position++;
+        return position - start;
+    }
+
+    private boolean atSegmentEnd(CharSequence line) {
+        skipBlanks(line);
+        return position == line.length() || line.charAt(position) == ';';
+    }
+}
@@ -36,6 +36,43 @@ public class Config {
          */
         public static int MAX_MINES(int height, int width) { return height*width-1;}
 
+        // difficulty-targeted generation: layouts are re-sampled until their 3BV falls in the level's band (-Dmines.bands=true)
+        public static final boolean DIFFICULTY_BANDS  = Boolean.parseBoolean(System.getProperty("mines.bands", "false"));
+        public static final int  BEGINNER_MIN_3BV     =  15;
+        public static final int  BEGINNER_MAX_3BV     =  25;
+        public static final int  INTERMEDIATE_MIN_3BV =  65;
+        public static final int  INTERMEDIATE_MAX_3BV =  85;
+        public static final int  EXPERT_MIN_3BV       = 150;
+        public static final int  EXPERT_MAX_3BV       = 180;
+        public static final long GENERATOR_MAX_ATTEMPTS = 5_000_000;
+
+        public static int GENERATOR_THREADS() { return Runtime.getRuntime().availableProcessors(); }
+
+        // every game is recorded as its seed plus its moves, see ReplayFormat
+        public static boolean RECORD_REPLAYS   = true;
+        public static final String REPLAY_DIRECTORY = "replays";
+        public static final int REPLAY_KEYFRAME_INTERVAL = 64;  // moves between two board snapshots in a recording
+
+        // player statistics, see PlayerStatsStore
+        public static final String STATS_FILE      = "stats/minesweeper.stats";
+        public static final int    STATS_HISTORY    = 10_000;   // game records kept after a compaction
+        public static final int    STATS_COMPACT_AT = 50_000;
+        public static final String LEADERBOARD_FILE = "stats/minesweeper.leaderboard";
+        public static final int    LEADERBOARD_SIZE = 100;      // best times kept per level and custom board size
+        public static final String TIMINGS_FILE     = "stats/minesweeper.timings";
+        public static final String SAVE_FILE        = "saves/minesweeper.save";
+
+        // game events, see GameEventBus
+        public static final int  EVENT_BUFFER_SIZE  = 1024;   // events waiting per sink before new ones are dropped
+        public static final int  EVENT_BATCH_SIZE   = 32;
+        public static final long EVENT_DRAIN_MILLIS = 500;    // wait for the sinks after a game, before reading the statistics
+
+        // play with the arrow keys and single-key commands when the terminal allows it (Unix, stdin is a terminal),
+        // ':' types a line of moves; -Dmines.rawInput=false reads lines only
+        public static final boolean RAW_INPUT   = Boolean.parseBoolean(System.getProperty("mines.rawInput", "true"));
+        // with raw input: left click opens, right click flags, middle click chords (xterm SGR mouse reporting)
+        public static final boolean MOUSE_INPUT = Boolean.parseBoolean(System.getProperty("mines.mouse", "true"));
+
         public static int CELL_CHARACTER_SIZE = 3;
         public static class Coordinates {
             // TEXTS COORDINATES
@@ -46,6 +83,7 @@ public class Config {
             public static final int GAME_TITLE_ROW = 1;
             public static final int WELCOME_MESSAGE_ROW =  GAME_TITLE_ROW + 1 + Utils.getLinesCount(AppTexts.MinesSweeper.GAME_TITLE);
             public static final int USER_STATUS_ROW = WELCOME_MESSAGE_ROW + Utils.getLinesCount(AppTexts.MinesSweeper.WELCOME_MESSAGE);
+            public static final int LAST_RANK_ROW = USER_STATUS_ROW + Utils.getLinesCount(AppTexts.MinesSweeper.USER_STATUS_FORMAT);
             public static final int MENU_SELECT_DIFFICULTY_ROW = USER_STATUS_ROW + 1 + Utils.getLinesCount(AppTexts.MinesSweeper.USER_STATUS_FORMAT);
             public static final int WRONG_OPTION_ERROR_ROW = MENU_SELECT_DIFFICULTY_ROW + Utils.getLinesCount(AppTexts.MinesSweeper.MENU_SELECT_DIFFICULTY);
             public static final int MENU_OPTIONS_ROW = WRONG_OPTION_ERROR_ROW + Utils.getLinesCount(AppTexts.MinesSweeper.MENU_SELECT_DIFFICULTY);
@@ -53,6 +91,13 @@ public class Config {
             public static final int GAME_TITLE_COL = 1;
             public static final int WELCOME_MESSAGE_COL = 1;
             public static final int USER_STATUS_COL = 1;
+            public static final int LAST_RANK_COL = 1;
+            public static final int TIMING_STATUS_ROW = USER_STATUS_ROW;
+            public static final int TIMING_STATUS_COL = USER_STATUS_COL + 35;
+            public static final int EVENT_METRICS_ROW = TIMING_STATUS_ROW + Utils.getLinesCount(AppTexts.MinesSweeper.TIMING_STATUS_FORMAT);
+            public static final int EVENT_METRICS_COL = TIMING_STATUS_COL;
+            public static final int OUTPUT_METRICS_ROW = EVENT_METRICS_ROW + 1;
+            public static final int OUTPUT_METRICS_COL = TIMING_STATUS_COL;
             public static final int MENU_SELECT_DIFFICULTY_COL = 1;
             public static final int WRONG_OPTION_ERROR_COL = 1;
             public static final int MENU_OPTIONS_COL = 1;
@@ -78,6 +123,9 @@ public class Config {
             public static final int getInputRow    = minesInfoRow   + 1 + Utils.getLinesCount(AppTexts.MinesSweeper.MINES_LEFT_FORMAT);
             public static final int errorLineRow   = getInputRow        + Utils.getLinesCount(AppTexts.MinesSweeper.INPUT_PROMPT);
 
+            public static final int GENERATION_INFO_ROW = LEVEL_INFO_ROW;
+            public static final int GENERATION_INFO_COL = 30;
+
             public static final int LEVEL_INFO_COL = 1;
             public static final int TIME_COL = 1;
             public static final int minesInfoCol   = 1;
@@ -102,6 +150,56 @@ public class Config {
         }
     }
 
+    /**
+     * Configuration settings for the terminal output.
+     */
+    public static class Display {
+        // "truecolor", "256" or "16" (-Dmines.colors=...), empty to detect it from COLORTERM and TERM
+        public static final String COLOR_DEPTH = System.getProperty("mines.colors", "");
+        // weight of the newest write in the smoothed time per character, see FramePacer
+        public static final double WRITE_COST_SMOOTHING = 0.25;
+
+        // terminal output, see AsyncTerminalWriter; -Dmines.asyncOutput=false prints from the game thread
+        public static final boolean ASYNC_OUTPUT        = Boolean.parseBoolean(System.getProperty("mines.asyncOutput", "true"));
+        public static final int     OUTPUT_BUFFER_SIZE  = 16 * 1024;
+        public static final int     OUTPUT_BUFFERS      = 64;      // 1 MB of output waiting at most
+        // "block" waits for the terminal when all the buffers wait, "discard" drops the output and redraws (-Dmines.outputOverflow=...)
+        public static final String  OUTPUT_OVERFLOW     = System.getProperty("mines.outputOverflow", "block");
+        public static final long    OUTPUT_DRAIN_MILLIS = 1000;    // output still written at exit
+
+        // compiled animations, see AnimationClipCache; -Dmines.clipDirectory= (empty) keeps them in memory only
+        public static final long   CLIP_CACHE_BYTES = 4L << 20;
+        public static final String CLIP_DIRECTORY   = System.getProperty("mines.clipDirectory", "cache/clips");
+
+        // how often the terminal is asked its size while playing, see TerminalInput; 0 to never follow a resize
+        public static final long RESIZE_POLL_MILLIS = 500;
+
+        // performance HUD, see PerformanceHud: moves its figures are taken over, and how often it is redrawn while idle
+        public static final int  HUD_WINDOW         = 64;
+        public static final long HUD_REFRESH_MILLIS = 1000;
+    }
+
+    /**
+     * Configuration settings for the board solver used by bots and analysis code.
+     */
+    public static class Solver {
+        public static final int  CACHE_CAPACITY      = 1 << 16;   // solved frontier components kept in memory
+        public static final int  CACHE_STRIPES       = 16;
+        public static final long MAX_COMPONENT_NODES = 2_000_000; // enumeration budget before a component is left unsolved
+    }
+
+    /**
+     * Configuration settings for headless simulation campaigns.
+     */
+    public static class Simulation {
+        public static final int  DEFAULT_GAMES       = 100_000;
+        public static final int  DEFAULT_RANGE_SIZE  = 1_000;   // seeds handed to a worker at a time
+        public static final long DEFAULT_BASE_SEED   = 1L;
+        public static final int  MAX_WORKER_RESTARTS = 16;      // total restarts before the campaign is aborted
+
+        public static int DEFAULT_WORKERS() { return Math.max(1, Runtime.getRuntime().availableProcessors() - 1); }
+    }
+
     /**
      * Configuration settings specific to the Player.
      * */
@@ -0,0 +1,203 @@
+/**
+ * Writes frames to the terminal and paces animations by the wall clock, whatever the speed of the terminal.
+ * <p>
+ * Every frame written is flushed and timed, and the time per character is kept as a smoothed average: on a local
+ * terminal it is next to nothing, over a congested SSH link writes block until the kernel's buffers drain.
+ * An animation gives each of its frames the time it is due, counted from the animation's start. A frame that would
+ * not be on screen before the next one is due, at the measured speed, is not drawn: full frames are dropped, and
+ * updates are kept and merged with those of the next frame. Animations so last as long on a slow link as on a fast
+ * one, with fewer frames, instead of falling seconds behind the game.
+ * <p>
+ * With the {@link AsyncTerminalWriter}, printing returns at once: the writes to stdout are timed on its thread
+ * instead, and the output it still holds is counted as written before the frame.
+ */
+public class FramePacer {
+    // smoothed time and length of writes, see Config.Display.WRITE_COST_SMOOTHING; their ratio weighs writes by
+    // their length, so the fixed cost of a few characters written alone does not pass for a slow terminal
+    private static volatile double writeNanos, writeChars;
+    private static volatile long   lastWriteNanos;
+    // the last animation that showed two frames or more, see PerformanceHud
+    private static volatile double animationFps;
+    private static volatile int    animationDropped;
+
+    private final long          startNanos = System.nanoTime();
+    private final AnsiOptimizer optimizer  = new AnsiOptimizer();
+    private int                 shown, dropped;
+    private long                firstShownNanos;
+
+    /**
+     * Prints a frame and flushes it, measuring how long the terminal took to accept it.
+     */
+    public static void write(CharSequence frame) {
+        long start = System.nanoTime();
+        System.out.print(frame);
+        System.out.flush();
+        long nanos = System.nanoTime() - start;
+        lastWriteNanos = nanos;
+        // the asynchronous writer returns at once, it reports what the terminal takes from its own thread
+        if (AsyncTerminalWriter.installed() == null) recordWrite(nanos, frame.length());
+    }
+
+    /**
+     * Writes bytes already encoded for {@code System.out} and flushes them, measuring it like {@link #write(CharSequence)}.
+     */
+    public static void write(byte[] bytes, int offset, int length) {
+        long start = System.nanoTime();
+        System.out.write(bytes, offset, length);
+        System.out.flush();
+        long nanos = System.nanoTime() - start;
+        lastWriteNanos = nanos;
+        if (AsyncTerminalWriter.installed() == null) recordWrite(nanos, length);
+    }
+
+    /**
+     * Adds a write of {@code chars} characters (or bytes) that took {@code nanos} to the smoothed write cost.
+     */
+    static void recordWrite(long nanos, long chars) {
+        if (chars == 0) return;
+        double smoothing = Config.Display.WRITE_COST_SMOOTHING;
+        if (writeChars == 0) {
+            writeNanos = nanos;
+            writeChars = chars;
+        } else {
+            writeNanos = smoothing * nanos + (1 - smoothing) * writeNanos;
+            writeChars = smoothing * chars + (1 - smoothing) * writeChars;
+        }
+    }
+
+    /**
+     * Smoothed time to write a character of output, in nanoseconds.
+     */
+    public static double writeNanosPerChar() {
+        return writeChars == 0 ? 0 : writeNanos / writeChars;
+    }
+
+    /**
+     * Time the last frame written kept its caller, in nanoseconds.
+     */
+    public static long lastWriteNanos() {
+        return lastWriteNanos;
+    }
+
+    /**
+     * Frames per second the last animation showed, from its first frame to its last one so far.
+     */
+    public static double animationFps() {
+        return animationFps;
+    }
+
+    /**
+     * Frames the last animation dropped, or held back to merge them, so far.
+     */
+    public static int animationDropped() {
+        return animationDropped;
+    }
+
+    /**
+     * Shows a full frame of the animation, or drops it if it would still be writing when the next frame is due.
+     * The last frame of an animation is always shown.
+     *
+     * @param nextDueMillis when the next frame is due, from the start of the animation; ignored for the last frame
+     * @return false if the frame was dropped
+     */
+    public boolean show(CharSequence frame, long nextDueMillis, boolean last) {
+        String optimized = optimizer.optimize(frame);
+        if (!last && isLate(optimized.length(), nextDueMillis)) {
+            drop();
+            return false;
+        }
+        write(optimized);
+        countShown();
+        return true;
+    }
+
+    /**
+     * Shows frames precompiled into bytes, see {@link AnimationClip}, unless they would still be writing when the next
+     * frame is due; the caller then shows them again with the next frame's bytes. The last frame is always shown.
+     *
+     * @return false if the bytes were held back
+     */
+    public boolean show(byte[] bytes, int offset, int length, long nextDueMillis, boolean last) {
+        if (length == 0) return true;
+        if (!last && isLate(length, nextDueMillis)) {
+            drop();
+            return false;
+        }
+        write(bytes, offset, length);
+        countShown();
+        return true;
+    }
+
+    /**
+     * Shows the updates collected since the last frame shown and clears them, unless they would still be writing when
+     * the next frame is due: they are then left in {@code updates}, for the next updates to be appended and shown with.
+     */
+    public void showUpdates(StringBuilder updates, long nextDueMillis) {
+        if (updates.isEmpty()) return;
+        String optimized = optimizer.optimize(updates);
+        if (isLate(optimized.length(), nextDueMillis)) {
+            drop();
+            return;
+        }
+        write(optimized);
+        updates.setLength(0);
+        countShown();
+    }
+
+    /**
+     * Shows whatever updates are left at the end of the animation.
+     */
+    public void finish(StringBuilder updates) {
+        if (updates.isEmpty()) return;
+        write(optimizer.optimize(updates));
+        updates.setLength(0);
+        countShown();
+    }
+
+    private void countShown() {
+        long now = System.nanoTime();
+        if (shown++ == 0) {
+            firstShownNanos = now;
+            return;
+        }
+        animationFps = (shown - 1) * 1e9 / Math.max(1, now - firstShownNanos);
+        animationDropped = dropped;
+    }
+
+    /**
+     * Counts a dropped frame and eases the write cost, which nothing measures while frames are dropped: a terminal that
+     * has caught up, or a cost measured before the JIT warmed up, so gets frames again after a few drops.
+     */
+    private void drop() {
+        dropped++;
+        writeNanos *= 1 - Config.Display.WRITE_COST_SMOOTHING;
+    }
+
+    private boolean isLate(int chars, long nextDueMillis) {
+        // output already queued for the asynchronous writer goes out first
+        long writeEnd = System.nanoTime() + (long) ((chars + AsyncTerminalWriter.queued()) * writeNanosPerChar());
+        return writeEnd - startNanos > nextDueMillis * 1_000_000;
+    }
+
+    /**
+     * Sleeps until the given time from the start of the animation, if it is not past already.
+     */
+    public void sleepUntil(long dueMillis) {
+        long remaining = dueMillis - (System.nanoTime() - startNanos) / 1_000_000;
+        if (remaining > 0) Utils.sleep(remaining);
+    }
+
+    /**
+     * Frames shown so far, including merged updates.
+     */
+    public int shown() {
+        return shown;
+    }
+
+    /**
+     * Frames dropped, or updates held back to be merged, so far.
+     */
+    public int dropped() {
+        return dropped;
+    }
+}
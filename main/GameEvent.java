@@ -0,0 +1,50 @@
+/**
+ * Something that happened in a game, published on a {@link GameEventBus}. Events are immutable, they are read
+ * on the subscribers' threads.
+ */
+public final class GameEvent {
+    public enum Type {
+        STARTED, OPENED, FLAGGED, UNFLAGGED, CHORDED, AUTO_RESOLVED, WON, LOST, QUIT;
+
+        /**
+         * True for the last event of a game.
+         */
+        public boolean endsGame() {
+            return this == WON || this == LOST || this == QUIT;
+        }
+    }
+
+    final Type               type;
+    final MinesSweeper.Level level;
+    final int                row, col;        // the cell played, -1 when the event has none
+    final long               elapsedMillis;   // game time when it happened
+    final long               thinkMillis;     // delay before the input line of this move, -1 for the next moves of the line
+    final Outcome            outcome;         // the end of a game only, null for the other events
+
+    /**
+     * What the sinks keep of a game that ended: the board played, the result, and the replay recording to close with
+     * the final state of the board (null if the game was not recorded).
+     */
+    record Outcome(GameResult result, int width, int height, int mineCount, int threeBV,
+                   ReplayRecorder replay, byte replayOutcome, int coveredCells, int flags, long zobrist) {
+    }
+
+    GameEvent(Type type, MinesSweeper.Level level, int row, int col, long elapsedMillis, long thinkMillis) {
+        this(type, level, row, col, elapsedMillis, thinkMillis, null);
+    }
+
+    GameEvent(Type type, MinesSweeper.Level level, int row, int col, long elapsedMillis, long thinkMillis, Outcome outcome) {
+        this.type = type;
+        this.level = level;
+        this.row = row;
+        this.col = col;
+        this.elapsedMillis = elapsedMillis;
+        this.thinkMillis = thinkMillis;
+        this.outcome = outcome;
+    }
+
+    @Override
+    public String toString() {
+        return type + (row >= 0 ? " " + row + "," + col : "") + " at " + elapsedMillis + " ms";
+    }
+}
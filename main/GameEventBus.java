@@ -0,0 +1,190 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Publishes {@link GameEvent}s from the game thread to sinks such as statistics and recorders, which run on their own threads.
+ * <p>
+ * Every subscriber has a bounded buffer ({@link Config.MineSweeper#EVENT_BUFFER_SIZE}). Publishing moves never blocks: when a
+ * subscriber's buffer is full the move is dropped for that subscriber and counted, so a slow sink costs events,
+ * never game time. The end of a game is not dropped but waits for room, up to {@link Config.MineSweeper#EVENT_DRAIN_MILLIS},
+ * since it flushes the sinks' batches; such waits are counted too. Sinks receive events in batches, delivered when a
+ * batch is full or a game ends.
+ */
+public class GameEventBus implements AutoCloseable {
+    private static final ExecutorService DELIVERY = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "game-event-delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SubmissionPublisher<GameEvent> publisher;
+    private final List<BatchingSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder blocked   = new LongAdder();
+    private volatile int    maxLag;   // written by the publishing thread only
+
+    public GameEventBus(int bufferSize) {
+        this.publisher = new SubmissionPublisher<>(DELIVERY, bufferSize);
+    }
+
+    /**
+     * Delivers the events published from now on to {@code sink}, at most {@code batchSize} at a time.
+     * The list passed to the sink is reused, it must not be kept after the call returns.
+     */
+    public void subscribe(int batchSize, Consumer<List<GameEvent>> sink) {
+        BatchingSubscriber subscriber = new BatchingSubscriber(batchSize, sink, published);
+        subscribers.add(subscriber);
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Hands an event to every subscriber, called by the game thread. Only the end of a game may wait, see above.
+     *
+     * @return false if some sink will not receive it: the bus is closed, has no sinks, or a buffer stayed full
+     */
+    public boolean publish(GameEvent event) {
+        if (publisher.isClosed() || !publisher.hasSubscribers()) return false;
+        published.increment();
+        int lag;
+        if (event.type.endsGame()) {
+            if (publisher.estimateMaximumLag() >= publisher.getMaxBufferCapacity()) blocked.increment();
+            lag = publisher.offer(event, Config.MineSweeper.EVENT_DRAIN_MILLIS, TimeUnit.MILLISECONDS, GameEventBus::drop);
+        } else {
+            lag = publisher.offer(event, GameEventBus::drop);
+        }
+        if (lag > maxLag) maxLag = lag;
+        return lag >= 0;   // negative: minus the number of sinks that dropped it
+    }
+
+    private static boolean drop(Flow.Subscriber<? super GameEvent> subscriber, GameEvent event) {
+        ((BatchingSubscriber) subscriber).dropped.increment();
+        return false;
+    }
+
+    /**
+     * Waits until every subscriber has received or dropped all events published so far.
+     *
+     * @return false if the time ran out first
+     */
+    public boolean awaitIdle(long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        for (BatchingSubscriber subscriber : subscribers) {
+            while (!subscriber.isIdle()) {
+                if (System.nanoTime() > deadline) return false;
+                Utils.sleep(1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Events published while at least one sink was subscribed.
+     */
+    public long published() {
+        return published.sum();
+    }
+
+    /**
+     * Events lost to full buffers, summed over the subscribers.
+     */
+    public long dropped() {
+        long dropped = 0;
+        for (BatchingSubscriber subscriber : subscribers) dropped += subscriber.dropped.sum();
+        return dropped;
+    }
+
+    /**
+     * Ends of games that had to wait for a full buffer.
+     */
+    public long blocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * Batches whose sink threw, they are lost.
+     */
+    public long failedBatches() {
+        long failed = 0;
+        for (BatchingSubscriber subscriber : subscribers) failed += subscriber.failed.sum();
+        return failed;
+    }
+
+    /**
+     * Most events ever waiting in one subscriber's buffer.
+     */
+    public int maxLag() {
+        return maxLag;
+    }
+
+    @Override
+    public void close() {
+        publisher.close();
+    }
+
+    private static final class BatchingSubscriber implements Flow.Subscriber<GameEvent> {
+        private final int                       batchSize;
+        private final Consumer<List<GameEvent>> sink;
+        private final List<GameEvent>           batch;
+        private final LongAdder                 published;         // the bus's count
+        private final long                      publishedBefore;
+        private final LongAdder                 delivered = new LongAdder();   // handed to the sink, or lost with a failed batch
+        private final LongAdder                 dropped   = new LongAdder();
+        private final LongAdder                 failed    = new LongAdder();
+        private Flow.Subscription               subscription;
+
+        BatchingSubscriber(int batchSize, Consumer<List<GameEvent>> sink, LongAdder published) {
+            this.batchSize = batchSize;
+            this.sink = sink;
+            this.batch = new ArrayList<>(batchSize);
+            this.published = published;
+            this.publishedBefore = published.sum();
+        }
+
+        boolean isIdle() {
+            return delivered.sum() + dropped.sum() == published.sum() - publishedBefore;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(batchSize);
+        }
+
+        @Override
+        public void onNext(GameEvent event) {
+            batch.add(event);
+            // the end of a game is flushed at once, whoever waits for the results should not wait for more games
+            if (batch.size() >= batchSize || event.type.endsGame()) flush();
+        }
+
+        private void flush() {
+            int count = batch.size();
+            try {
+                sink.accept(batch);
+            } catch (RuntimeException _) {
+                failed.increment();
+            }
+            batch.clear();
+            delivered.add(count);
+            subscription.request(count);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!batch.isEmpty()) flush();
+        }
+
+        @Override
+        public void onComplete() {
+            if (!batch.isEmpty()) flush();
+        }
+    }
+}
@@ -2,6 +2,7 @@ public class GameResult {
     private boolean win;
     private boolean lost;
     private boolean quited;
+    private boolean suspended;
     private int score;
     private double timeSpent;
 
@@ -21,6 +22,11 @@ public class GameResult {
         quited = true;
         return this;
     }
+    public GameResult suspend(double timeSpent){
+        this.timeSpent = timeSpent;
+        suspended = true;
+        return this;
+    }
     public GameResult score(int score){
         this.score = score;
         return this;
@@ -39,6 +45,10 @@ public class GameResult {
         return quited;
     }
 
+    public boolean isSuspended() {
+        return suspended;
+    }
+
     public double getTimeSpent() {
         return timeSpent;
     }
@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Binary snapshot of a suspended MinesSweeper game, written by the 's' command and loaded by the "Resume" menu option.
+ * <pre>
+ * header : magic (int) | version (byte) | width | height | mines | level | first click row + 1 | first click col + 1
+ *          | min 3BV | max 3BV | 3BV | layouts sampled | elapsed ms   (varints, first click 0 while the board is empty)
+ *          | seed (long)
+ * planes : mines | revealed cells | flagged cells
+ * </pre>
+ * Every plane is one bit per cell in row-major order, run-length encoded as the varint lengths of alternating runs
+ * of clear and set bits, starting with clear ones. Boards are mostly runs, so a plane takes a few bytes per thousand
+ * cells, and planes are decoded straight into the board cells.
+ * Counters, frontier and Zobrist hash are derived state and are rebuilt on load.
+ */
+public final class GameSnapshot {
+    public static final int  MAGIC   = 0x4D535356;   // "MSSV"
+    public static final byte VERSION = 1;
+
+    private GameSnapshot() {}
+
+    /**
+     * Writes the snapshot of a game to a temporary file and moves it over {@code path}.
+     *
+     * @return false if the file could not be written
+     */
+    public static boolean save(Path path, MinesSweeper game, long elapsedMillis) {
+        int cells = game.width() * game.height();
+        // a run of n cells never takes more than n bytes, plus the empty leading run a plane may start with
+        ByteBuffer buffer = ByteBuffer.allocate(128 + 3 * (cells + 8));
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        game.writeSnapshot(buffer, elapsedMillis);
+        buffer.flip();
+
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException _) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads a suspended game and deletes the snapshot, so a game can only be resumed once.
+     *
+     * @return the game, or null if there is no snapshot or it cannot be read
+     */
+    public static MinesSweeper load(Path path) {
+        if (!Files.exists(path)) return null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) return null;
+            MinesSweeper game = MinesSweeper.readSnapshot(buffer);
+            Files.deleteIfExists(path);
+            return game;
+        } catch (IOException | RuntimeException _) {
+            return null;
+        }
+    }
+
+    public static boolean exists(Path path) {
+        return Files.exists(path);
+    }
+
+    /**
+     * Writes a plane of {@code cells} bits as alternating run lengths.
+     */
+    static void putRuns(ByteBuffer out, int cells, IntPredicate bit) {
+        boolean current = false;
+        int run = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (bit.test(cell) != current) {
+                ReplayFormat.putVarint(out, run);
+                current = !current;
+                run = 0;
+            }
+            run++;
+        }
+        ReplayFormat.putVarint(out, run);
+    }
+
+    /**
+     * Reads a plane written by {@link #putRuns} and calls {@code set} for every set bit.
+     */
+    static void getRuns(ByteBuffer in, int cells, IntConsumer set) {
+        boolean current = false;
+        int cell = 0;
+        while (cell < cells) {
+            int run = (int) ReplayFormat.getVarint(in);
+            if (run > cells - cell) throw new IllegalStateException("Corrupted snapshot plane");
+            if (current) {
+                for (int end = cell + run; cell < end; cell++) set.accept(cell);
+            } else {
+                cell += run;
+            }
+            current = !current;
+        }
+    }
+}
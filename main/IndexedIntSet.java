@@ -0,0 +1,65 @@
+import java.util.Arrays;
+
+/**
+ * Set of ints in [0, capacity) with O(1) add, remove and membership, stored as a dense array of the elements plus
+ * the position of every element in it (a "sparse set"). Iterating costs O(size), not O(capacity).
+ */
+public class IndexedIntSet implements IntSetView {
+    private final int[] dense;
+    private final int[] position;
+    private       int   size;
+
+    public IndexedIntSet(int capacity) {
+        this.dense = new int[capacity];
+        this.position = new int[capacity];
+    }
+
+    /**
+     * @return true if the value was not in the set yet
+     */
+    public boolean add(int value) {
+        if (contains(value)) return false;
+        dense[size] = value;
+        position[value] = size++;
+        return true;
+    }
+
+    /**
+     * Removes a value by moving the last element into its slot.
+     *
+     * @return true if the value was in the set
+     */
+    public boolean remove(int value) {
+        if (!contains(value)) return false;
+        int last = dense[--size];
+        dense[position[value]] = last;
+        position[last] = position[value];
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        // position[] is never reset, a stale slot is recognised because it does not point back to the value
+        int index = position[value];
+        return index < size && dense[index] == value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int get(int index) {
+        return dense[index];
+    }
+
+    @Override
+    public int[] toArray() {
+        return Arrays.copyOf(dense, size);
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Streaming decoder of terminal input bytes into key events, fed one byte at a time by {@link TerminalInput}.
+ * <p>
+ * Events are plain ints ({@code type << 24 | payload}) handed to a {@link Sink}, so decoding allocates nothing.
+ * Recognized input: printable characters, Enter, arrow keys in normal ({@code ESC [ A}) and application
+ * ({@code ESC O A}) cursor mode, a lone Escape, and xterm SGR mouse reports ({@code ESC [ < b ; x ; y M},
+ * {@code m} for a release). Other escape sequences are consumed and ignored.
+ */
+public class InputDecoder {
+    public static final int CHAR   = 1;   // payload: the character
+    public static final int UP     = 2;
+    public static final int DOWN   = 3;
+    public static final int LEFT   = 4;
+    public static final int RIGHT  = 5;
+    public static final int ESCAPE = 6;
+    public static final int MOUSE  = 7;   // payload: see mouse(...)
+    public static final int RESIZE = 8;   // posted by TerminalInput, not decoded: the terminal changed size
+
+    // mouse actions and buttons
+    public static final int PRESS = 0, RELEASE = 1, MOTION = 2;
+    public static final int LEFT_BUTTON = 0, MIDDLE_BUTTON = 1, RIGHT_BUTTON = 2, NO_BUTTON = 3;
+    private static final int MAX_COORDINATE = (1 << 10) - 1;
+
+    private static final int MAX_PARAMETERS = 4;
+
+    /**
+     * Receives decoded events.
+     */
+    public interface Sink {
+        void event(int event);
+    }
+
+    private enum State { GROUND, ESCAPE, CSI, SS3 }
+
+    private final Sink  sink;
+    private       State state = State.GROUND;
+    private final int[] parameters = new int[MAX_PARAMETERS];
+    private       int   parameterCount;
+    private       char  privateMarker;   // '<', '?' or '>' right after the CSI, 0 if none
+
+    public InputDecoder(Sink sink) {
+        this.sink = sink;
+    }
+
+    public static int typeOf(int event) {
+        return event >>> 24;
+    }
+
+    public static int payloadOf(int event) {
+        return event & 0xFFFFFF;
+    }
+
+    static int event(int type, int payload) {
+        return type << 24 | payload;
+    }
+
+    /**
+     * Packs a mouse event: action (2 bits) | button (2 bits) | 1-based screen row and column (10 bits each).
+     */
+    static int mouse(int action, int button, int row, int col) {
+        return event(MOUSE, action << 22 | button << 20 | Math.min(row, MAX_COORDINATE) << 10 | Math.min(col, MAX_COORDINATE));
+    }
+
+    public static int mouseAction(int event) {
+        return (event >>> 22) & 3;
+    }
+
+    public static int mouseButton(int event) {
+        return (event >>> 20) & 3;
+    }
+
+    public static int mouseRow(int event) {
+        return (event >>> 10) & MAX_COORDINATE;
+    }
+
+    public static int mouseCol(int event) {
+        return event & MAX_COORDINATE;
+    }
+
+    /**
+     * Feeds the next input byte.
+     */
+    public void feed(int b) {
+        switch (state) {
+            case GROUND -> {
+                if (b == 0x1B) {
+                    state = State.ESCAPE;
+                } else if (b == '\r' || b == '\n') {
+                    sink.event(event(CHAR, '\n'));
+                } else if (b >= 0x20 && b != 0x7F) {
+                    sink.event(event(CHAR, b));
+                }
+            }
+            case ESCAPE -> {
+                if (b == '[') {
+                    state = State.CSI;
+                    parameterCount = 0;
+                    parameters[0] = 0;
+                    privateMarker = 0;
+                } else if (b == 'O') {
+                    state = State.SS3;
+                } else {
+                    // Alt+key or a lone Escape followed by a key
+                    state = State.GROUND;
+                    sink.event(event(ESCAPE, 0));
+                    feed(b);
+                }
+            }
+            case SS3 -> {
+                state = State.GROUND;
+                arrow(b);
+            }
+            case CSI -> csi(b);
+        }
+    }
+
+    /**
+     * Called when no byte follows an Escape right away, which makes it the Escape key rather than a sequence.
+     */
+    public void idle() {
+        if (state == State.ESCAPE) {
+            state = State.GROUND;
+            sink.event(event(ESCAPE, 0));
+        }
+    }
+
+    private void csi(int b) {
+        if (b >= '0' && b <= '9') {
+            if (parameterCount == 0) parameterCount = 1;
+            int index = parameterCount - 1;
+            if (index < MAX_PARAMETERS) parameters[index] = Math.min(99_999, parameters[index] * 10 + (b - '0'));
+        } else if (b == ';') {
+            if (parameterCount == 0) parameterCount = 1;
+            if (parameterCount < MAX_PARAMETERS) parameters[parameterCount] = 0;
+            parameterCount++;
+        } else if (b == '<' || b == '?' || b == '>') {
+            privateMarker = (char) b;
+        } else if (b >= 0x40 && b <= 0x7E) {
+            state = State.GROUND;
+            if (privateMarker == 0) arrow(b);
+            else if (privateMarker == '<' && (b == 'M' || b == 'm') && parameterCount == 3) sgrMouse(b == 'm');
+        } else if (b < 0x20 || b > 0x7E) {
+            // not a sequence after all
+            state = State.GROUND;
+        }
+    }
+
+    /**
+     * Decodes the parameters of an SGR mouse report: button code, column, row.
+     */
+    private void sgrMouse(boolean released) {
+        int code = parameters[0];
+        if ((code & 64) != 0) return;   // wheel
+        int button = code & 3;
+        int action = released ? RELEASE : (code & 32) != 0 ? MOTION : PRESS;
+        sink.event(mouse(action, button, parameters[2], parameters[1]));
+    }
+
+    private void arrow(int b) {
+        switch (b) {
+            case 'A' -> sink.event(event(UP, 0));
+            case 'B' -> sink.event(event(DOWN, 0));
+            case 'C' -> sink.event(event(RIGHT, 0));
+            case 'D' -> sink.event(event(LEFT, 0));
+            default -> { }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * Read-only view of a set of non-negative ints that can be iterated by position:
+ * {@code for (int i = 0; i < set.size(); i++) set.get(i)}.
+ */
+public interface IntSetView {
+    int     size();
+
+    /**
+     * @param index a position in [0, size()), the order is unspecified and changes when the set changes
+     */
+    int     get(int index);
+
+    boolean contains(int value);
+
+    /**
+     * @return a copy of the elements, in iteration order
+     */
+    int[]   toArray();
+}
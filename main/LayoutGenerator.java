@@ -0,0 +1,225 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates mine layouts, optionally rejection-sampling them until their 3BV falls in a requested band.
+ * <p>
+ * Sample {@code i} is drawn from a generator seeded with {@code seed} and {@code i}, and the accepted layout is always the
+ * in-band sample with the lowest index, so the result only depends on the seed, never on the number of threads.
+ */
+public class LayoutGenerator {
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(Config.MineSweeper.GENERATOR_THREADS(), task -> {
+        Thread thread = new Thread(task, "layout-generator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A generated layout and how hard it was to find.
+     */
+    public static class Result {
+        final boolean[] mines;
+        final int       threeBV;
+        final long      attempts;          // samples up to and including the accepted one
+        final double    samplesPerSecond;  // over all threads
+        final boolean   inBand;
+
+        Result(boolean[] mines, int threeBV, long attempts, double samplesPerSecond, boolean inBand) {
+            this.mines = mines;
+            this.threeBV = threeBV;
+            this.attempts = attempts;
+            this.samplesPerSecond = samplesPerSecond;
+            this.inBand = inBand;
+        }
+    }
+
+    /**
+     * Reusable per-thread buffers, so sampling allocates nothing.
+     */
+    private static final class Sampler {
+        final int       width, height, mines;
+        final int[]     candidates;
+        final int       candidateCount;
+        final int[]     swaps;
+        final boolean[] layout;
+        final int[]     parent;
+        final byte[]    numbers;
+
+        Sampler(int width, int height, int mines, int firstRow, int firstCol) {
+            this.width = width;
+            this.height = height;
+            this.mines = mines;
+            this.layout = new boolean[width * height];
+            this.parent = new int[width * height];
+            this.numbers = new byte[width * height];
+            this.candidates = new int[width * height];
+            this.swaps = new int[mines];
+
+            // keep the first click and, when there is room, its neighbours free of mines
+            boolean freeNeighbours = width * height - 9 >= mines;
+            int count = 0;
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    boolean nearFirst = Math.abs(row - firstRow) <= 1 && Math.abs(col - firstCol) <= 1;
+                    boolean isFirst = row == firstRow && col == firstCol;
+                    if (isFirst || (freeNeighbours && nearFirst)) continue;
+                    candidates[count++] = row * width + col;
+                }
+            }
+            this.candidateCount = count;
+        }
+
+        /**
+         * Draws sample {@code index} into {@link #layout} with a partial Fisher-Yates shuffle and returns its 3BV.
+         */
+        int sample(long seed, long index) {
+            SplittableRandom rand = new SplittableRandom(seed + index * 0x9E3779B97F4A7C15L);
+            Arrays.fill(layout, false);
+            for (int i = 0; i < mines; i++) {
+                int j = i + rand.nextInt(candidateCount - i);
+                swap(i, j);
+                swaps[i] = j;
+                layout[candidates[i]] = true;
+            }
+            // undo the shuffle, every sample must start from the same candidate order
+            for (int i = mines - 1; i >= 0; i--) swap(i, swaps[i]);
+            return threeBV(layout, width, height, parent, numbers);
+        }
+
+        private void swap(int i, int j) {
+            int swap = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = swap;
+        }
+    }
+
+    /**
+     * Generates a layout for a board whose first click is at (firstRow, firstCol).
+     *
+     * @param min3BV lowest accepted 3BV (inclusive), 0 for no lower bound
+     * @param max3BV highest accepted 3BV (inclusive), {@code Integer.MAX_VALUE} for no upper bound
+     * @return the first in-band sample, or sample 0 if none was found within {@link Config.MineSweeper#GENERATOR_MAX_ATTEMPTS}
+     */
+    public static Result generate(int width, int height, int mines, int firstRow, int firstCol, long seed, int min3BV, int max3BV) {
+        long start = System.nanoTime();
+        Sampler first = new Sampler(width, height, mines, firstRow, firstCol);
+        int firstBV = first.sample(seed, 0);
+        if (firstBV >= min3BV && firstBV <= max3BV) {
+            return new Result(first.layout.clone(), firstBV, 1, 1e9 / Math.max(1, System.nanoTime() - start), true);
+        }
+
+        int threads = Config.MineSweeper.GENERATOR_THREADS();
+        AtomicLong accepted = new AtomicLong(Long.MAX_VALUE);
+        AtomicLong samples = new AtomicLong(1);
+        Future<?>[] tasks = new Future<?>[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            tasks[t] = POOL.submit(() -> {
+                Sampler sampler = new Sampler(width, height, mines, firstRow, firstCol);
+                long drawn = 0;
+                // a thread stops once a lower index than its next one has been accepted
+                for (long i = 1 + offset; i < Config.MineSweeper.GENERATOR_MAX_ATTEMPTS && i < accepted.get(); i += threads) {
+                    drawn++;
+                    int bv = sampler.sample(seed, i);
+                    if (bv >= min3BV && bv <= max3BV) {
+                        long current = accepted.get();
+                        while (i < current && !accepted.compareAndSet(current, i)) current = accepted.get();
+                        break;
+                    }
+                }
+                samples.addAndGet(drawn);
+            });
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("Layout generation failed", e);
+            }
+        }
+        double samplesPerSecond = samples.get() * 1e9 / Math.max(1, System.nanoTime() - start);
+
+        long index = accepted.get();
+        if (index == Long.MAX_VALUE) {
+            first.sample(seed, 0);
+            return new Result(first.layout.clone(), firstBV, samples.get(), samplesPerSecond, false);
+        }
+        int bv = first.sample(seed, index);
+        return new Result(first.layout.clone(), bv, index + 1, samplesPerSecond, true);
+    }
+
+    /**
+     * Computes the 3BV of a layout: the minimum number of clicks needed to clear it, i.e. the number of openings
+     * (8-connected regions of zeros, merged with union-find) plus the numbered cells that touch no zero.
+     *
+     * @param mines   the layout, indexed by {@code row * width + col}
+     * @param parent  work array of at least {@code width * height} ints
+     * @param numbers work array of at least {@code width * height} bytes
+     */
+    public static int threeBV(boolean[] mines, int width, int height, int[] parent, byte[] numbers) {
+        int cells = width * height;
+        Arrays.fill(numbers, 0, cells, (byte) 0);
+        for (int cell = 0; cell < cells; cell++) {
+            if (!mines[cell]) continue;
+            int row = cell / width, col = cell % width;
+            for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, height - 1); i++) {
+                for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, width - 1); j++) {
+                    numbers[i * width + j]++;
+                }
+            }
+        }
+
+        for (int cell = 0; cell < cells; cell++) parent[cell] = cell;
+        for (int cell = 0; cell < cells; cell++) {
+            if (mines[cell] || numbers[cell] != 0) continue;
+            int row = cell / width, col = cell % width;
+            // forward neighbours only, every pair of adjacent zeros is visited once
+            if (col + 1 < width) unionZeros(mines, numbers, parent, cell, cell + 1);
+            if (row + 1 < height) {
+                unionZeros(mines, numbers, parent, cell, cell + width);
+                if (col + 1 < width) unionZeros(mines, numbers, parent, cell, cell + width + 1);
+                if (col > 0) unionZeros(mines, numbers, parent, cell, cell + width - 1);
+            }
+        }
+
+        int clicks = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (mines[cell]) continue;
+            if (numbers[cell] == 0) {
+                if (find(parent, cell) == cell) clicks++;
+                continue;
+            }
+            if (!touchesZero(mines, numbers, width, height, cell)) clicks++;
+        }
+        return clicks;
+    }
+
+    private static boolean touchesZero(boolean[] mines, byte[] numbers, int width, int height, int cell) {
+        int row = cell / width, col = cell % width;
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, height - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, width - 1); j++) {
+                int neighbour = i * width + j;
+                if (!mines[neighbour] && numbers[neighbour] == 0) return true;
+            }
+        }
+        return false;
+    }
+
+    private static void unionZeros(boolean[] mines, byte[] numbers, int[] parent, int a, int b) {
+        if (mines[b] || numbers[b] != 0) return;
+        int ra = find(parent, a), rb = find(parent, b);
+        if (ra != rb) parent[Math.max(ra, rb)] = Math.min(ra, rb);
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+}
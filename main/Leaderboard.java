@@ -0,0 +1,238 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fastest winning times, per level and per custom board size.
+ * <p>
+ * Every key keeps a bounded max-heap of its {@link Config.MineSweeper#LEADERBOARD_SIZE} best times, so a new time only
+ * costs O(log K) and the slowest entry is the one evicted. Ranks are answered by binary search over a sorted copy of
+ * the heap, rebuilt lazily after a change. The whole leaderboard is saved as sorted entries to a temporary file
+ * that is then atomically moved over the previous one.
+ * <p>
+ * Usage: {@code java Main leaderboard}
+ */
+public class Leaderboard {
+    private static final int MAGIC   = 0x4D534C42;   // "MSLB"
+    private static final int VERSION = 1;
+
+    /**
+     * Top-K times of one key: a max-heap on time with the dates as satellite data.
+     */
+    static final class Board {
+        final int[]  times;   // milliseconds
+        final long[] dates;   // epoch millis of the win
+        int          size;
+        private int[]  sorted;  // ascending copy of times, null when stale
+        private long[] sortedDates;
+
+        Board(int capacity) {
+            times = new int[capacity];
+            dates = new long[capacity];
+        }
+
+        /**
+         * @return true if the time made it into the board
+         */
+        boolean offer(int time, long date) {
+            if (size < times.length) {
+                times[size] = time;
+                dates[size] = date;
+                siftUp(size++);
+            } else if (time < times[0]) {
+                // replace the slowest time
+                times[0] = time;
+                dates[0] = date;
+                siftDown(0);
+            } else {
+                return false;
+            }
+            sorted = null;
+            return true;
+        }
+
+        /**
+         * Returns the 1-based rank a time has (or would have) on this board: one more than the number of strictly faster times.
+         */
+        int rank(int time) {
+            int[] ascending = sorted();
+            int low = 0, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ascending[mid] < time) low = mid + 1;
+                else high = mid;
+            }
+            return low + 1;
+        }
+
+        int[] sorted() {
+            if (sorted == null) {
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) order[i] = i;
+                Arrays.sort(order, (a, b) -> Integer.compare(times[a], times[b]));
+                sorted = new int[size];
+                sortedDates = new long[size];
+                for (int i = 0; i < size; i++) {
+                    sorted[i] = times[order[i]];
+                    sortedDates[i] = dates[order[i]];
+                }
+            }
+            return sorted;
+        }
+
+        long[] sortedDates() {
+            sorted();
+            return sortedDates;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (times[parent] >= times[i]) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i, left = 2 * i + 1, right = left + 1;
+                if (left < size && times[left] > times[largest]) largest = left;
+                if (right < size && times[right] > times[largest]) largest = right;
+                if (largest == i) return;
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int time = times[a];
+            times[a] = times[b];
+            times[b] = time;
+            long date = dates[a];
+            dates[a] = dates[b];
+            dates[b] = date;
+        }
+    }
+
+    private final Path               path;
+    private final Map<String, Board> boards = new TreeMap<>();
+
+    private Leaderboard(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the leaderboard key of a game: the level name, or the board size for custom games.
+     */
+    public static String keyOf(MinesSweeper.Level level, int width, int height, int mines) {
+        return level == MinesSweeper.Level.CUSTOM ? "CUSTOM-" + width + "x" + height + "x" + mines : level.name();
+    }
+
+    /**
+     * Loads the leaderboard at the given path; a missing or unreadable file gives an empty leaderboard.
+     */
+    public static Leaderboard open(Path path) {
+        Leaderboard leaderboard = new Leaderboard(path);
+        if (!Files.exists(path)) return leaderboard;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return leaderboard;
+            int keys = in.readInt();
+            for (int k = 0; k < keys; k++) {
+                Board board = leaderboard.board(in.readUTF());
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) board.offer(in.readInt(), in.readLong());
+            }
+        } catch (IOException _) {
+            leaderboard.boards.clear();
+        }
+        return leaderboard;
+    }
+
+    private Board board(String key) {
+        return boards.computeIfAbsent(key, _ -> new Board(Config.MineSweeper.LEADERBOARD_SIZE));
+    }
+
+    /**
+     * Submits a winning time and saves the leaderboard if it changed.
+     *
+     * @return the 1-based rank of the time, or -1 if it is not fast enough for the board
+     */
+    public int submit(String key, double timeMillis) {
+        int time = (int) Math.min(Integer.MAX_VALUE, Math.round(timeMillis));
+        Board board = board(key);
+        if (!board.offer(time, System.currentTimeMillis())) return -1;
+        save();
+        return board.rank(time);
+    }
+
+    /**
+     * Returns the rank a time would have on a board, in O(log K); may be beyond the board size.
+     */
+    public int rank(String key, double timeMillis) {
+        Board board = boards.get(key);
+        return board == null ? 1 : board.rank((int) Math.round(timeMillis));
+    }
+
+    /**
+     * Returns the number of times kept for a key.
+     */
+    public int size(String key) {
+        Board board = boards.get(key);
+        return board == null ? 0 : board.size;
+    }
+
+    /**
+     * Writes the sorted boards to a temporary file and moves it over the previous one, so a crash never leaves a torn file.
+     */
+    private void save() {
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(boards.size());
+                for (Map.Entry<String, Board> entry : boards.entrySet()) {
+                    Board board = entry.getValue();
+                    int[] times = board.sorted();
+                    long[] dates = board.sortedDates();
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(board.size);
+                    for (int i = 0; i < board.size; i++) {
+                        out.writeInt(times[i]);
+                        out.writeLong(dates[i]);
+                    }
+                }
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException _) {
+            // the leaderboard stays in memory and is saved again on the next record
+        }
+    }
+
+    public static void main(String[] args) {
+        Leaderboard leaderboard = open(Path.of(Config.MineSweeper.LEADERBOARD_FILE));
+        int shown = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        for (Map.Entry<String, Board> entry : leaderboard.boards.entrySet()) {
+            System.out.println(entry.getKey());
+            int[] times = entry.getValue().sorted();
+            long[] dates = entry.getValue().sortedDates();
+            for (int i = 0; i < Math.min(shown, times.length); i++) {
+                System.out.printf("%4d. %8.3f s  %tF%n", i + 1, times[i] / 1000.0, dates[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Streaming histogram of non-negative longs with log-linear buckets: every power of two is split in
+ * {@link #SUB_BUCKETS} equal buckets, so any percentile is within about 6% of the exact value.
+ * <p>
+ * Recording is O(1), memory is constant (960 counters) whatever the number of values, and two histograms
+ * are merged by adding their counters, which is what lets sessions and processes combine their data.
+ */
+public class LogHistogram {
+    private static final int SUB_BITS    = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS     = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private       long   count;
+    private       long   total;
+    private       long   min = Long.MAX_VALUE;
+    private       long   max;
+
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts[bucketOf(value)]++;
+        count++;
+        total += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(LogHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Returns the value below which {@code percent} percent of the recorded values fall, or 0 for an empty histogram.
+     */
+    public long percentile(double percent) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                long lower = lowerBound(bucket);
+                long upper = bucket + 1 < BUCKETS ? lowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+                return Math.clamp(lower + (upper - lower) / 2, min, max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+    }
+
+    /**
+     * Writes the non-empty buckets only.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        int used = 0;
+        for (long bucketCount : counts) if (bucketCount != 0) used++;
+        out.writeLong(count);
+        out.writeLong(total);
+        out.writeLong(min);
+        out.writeLong(max);
+        out.writeShort(used);
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (counts[bucket] == 0) continue;
+            out.writeShort(bucket);
+            out.writeLong(counts[bucket]);
+        }
+    }
+
+    /**
+     * Reads a histogram written by {@link #write} and merges it into this one.
+     */
+    public void mergeFrom(DataInputStream in) throws IOException {
+        long readCount = in.readLong();
+        long readTotal = in.readLong();
+        long readMin   = in.readLong();
+        long readMax   = in.readLong();
+        int used = in.readUnsignedShort();
+        for (int i = 0; i < used; i++) {
+            int bucket = in.readUnsignedShort();
+            if (bucket >= BUCKETS) throw new IOException("Bad histogram bucket " + bucket);
+            counts[bucket] += in.readLong();
+        }
+        count += readCount;
+        total += readTotal;
+        min = Math.min(min, readMin);
+        max = Math.max(max, readMax);
+    }
+}
@@ -1,6 +1,23 @@
+import java.io.IOException;
+import java.util.Arrays;
+
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (args.length > 0 && args[0].equals("simulate")) {
+            SimulationCoordinator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("replay")) {
+            ReplayPlayer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("leaderboard")) {
+            Leaderboard.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        AsyncTerminalWriter.install();
         Player player1 = new Player();
         player1.launchMenu();
     }
-}
\ No newline at end of file
+}
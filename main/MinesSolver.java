@@ -0,0 +1,500 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Exact solver for the visible state of a Minesweeper board.
+ * <p>
+ * The frontier (covered cells next to revealed numbers) is split into independent components. Every component is solved
+ * by enumerating its mine layouts, counted by number of mines, and the components are then combined with the
+ * unconstrained cells through the global mine count, which gives the exact mine probability of every covered cell.
+ * Solved components are stored in a process-wide {@link SolverCache} under their Zobrist hash, so identical subproblems
+ * are solved once across moves and across games.
+ */
+public class MinesSolver {
+    static final SolverCache CACHE = new SolverCache(Config.Solver.CACHE_CAPACITY, Config.Solver.CACHE_STRIPES);
+
+    /**
+     * Mine layouts of one frontier component, grouped by the number of mines they place.
+     * Counts are kept as doubles because large components overflow a long.
+     */
+    static final class ComponentSolution {
+        final int      cells;
+        final boolean  solved;
+        final double[] layouts;    // [k] layouts with k mines
+        final double[] cellMines;  // [k * cells + i] layouts with k mines where the i-th cell is a mine
+
+        ComponentSolution(int cells, boolean solved, double[] layouts, double[] cellMines) {
+            this.cells = cells;
+            this.solved = solved;
+            this.layouts = layouts;
+            this.cellMines = cellMines;
+        }
+    }
+
+    /**
+     * Result of analysing a board: mine probabilities of covered cells and the cells whose state is certain.
+     */
+    public static class Analysis {
+        private final int      width;
+        private final double[] probability;   // NaN for revealed and flagged cells
+        private final int[]    safeCells;
+        private final int[]    mineCells;
+        private final boolean  consistent;
+
+        Analysis(int width, double[] probability, int[] safeCells, int[] mineCells, boolean consistent) {
+            this.width = width;
+            this.probability = probability;
+            this.safeCells = safeCells;
+            this.mineCells = mineCells;
+            this.consistent = consistent;
+        }
+
+        /**
+         * @return the probability that a covered cell hides a mine, or NaN for revealed and flagged cells
+         */
+        public double probability(int row, int col) {
+            return probability[row * width + col];
+        }
+
+        /**
+         * @return indices ({@code row * width + col}) of covered cells that are certainly safe
+         */
+        public int[] getSafeCells() {
+            return safeCells;
+        }
+
+        /**
+         * @return indices ({@code row * width + col}) of unflagged cells that certainly hide a mine
+         */
+        public int[] getMineCells() {
+            return mineCells;
+        }
+
+        /**
+         * @return false when the revealed numbers and flags admit no mine layout (usually a wrong flag);
+         *         certain cells are not reported in that case
+         */
+        public boolean isConsistent() {
+            return consistent;
+        }
+
+        /**
+         * Picks the covered cell with the lowest mine probability, breaking ties at random.
+         *
+         * @return the cell index, or -1 if no covered cell is left
+         */
+        public int bestGuess(Random rand) {
+            double best = Double.POSITIVE_INFINITY;
+            int    bestCell = -1, ties = 0;
+            for (int cell = 0; cell < probability.length; cell++) {
+                double p = probability[cell];
+                if (Double.isNaN(p)) continue;
+                if (p < best - 1e-12) {
+                    best = p;
+                    bestCell = cell;
+                    ties = 1;
+                } else if (Math.abs(p - best) <= 1e-12 && rand.nextInt(++ties) == 0) {
+                    bestCell = cell;
+                }
+            }
+            return bestCell;
+        }
+    }
+
+    private MinesSweeper lastGame;
+    private long         lastHash;
+    private Analysis     lastAnalysis;
+
+    /**
+     * Analyses the visible state of the game. Repeated calls without a move in between return the previous result.
+     */
+    public Analysis analyze(MinesSweeper game) {
+        if (game == lastGame && game.zobristHash() == lastHash && lastAnalysis != null) {
+            return lastAnalysis;
+        }
+
+        int width = game.width(), height = game.height(), cells = width * height;
+        double[] probability = new double[cells];
+        Arrays.fill(probability, Double.NaN);
+
+        // ────── Frontier (maintained by the game) and unconstrained cells ──────
+        int[] frontierCells = game.frontier().toArray();
+        Arrays.sort(frontierCells);   // components must list their cells in a canonical order for the cache
+        int   poolSize = game.coveredCount() - game.flagsCount() - frontierCells.length;
+
+        // cells sharing a revealed number belong to the same component
+        int[] parent = new int[cells];
+        int[] representative = new int[cells];   // first frontier cell seen next to each number, +1
+        for (int cell : frontierCells) parent[cell] = cell;
+        for (int cell : frontierCells) {
+            int row = cell / width, col = cell % width;
+            for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, height - 1); i++) {
+                for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, width - 1); j++) {
+                    if (game.revealedNumber(i, j) <= 0) continue;
+                    int number = i * width + j;
+                    if (representative[number] == 0) representative[number] = cell + 1;
+                    else union(parent, representative[number] - 1, cell);
+                }
+            }
+        }
+
+        // ────── Group components, cells of each in increasing index order ──────
+        int[] componentOf = new int[cells];
+        Arrays.fill(componentOf, -1);
+        int[] rootComponent = new int[cells];
+        Arrays.fill(rootComponent, -1);
+        int componentCount = 0;
+        int[] sizes = new int[frontierCells.length + 1];
+        for (int cell : frontierCells) {
+            int root = find(parent, cell);
+            if (rootComponent[root] < 0) rootComponent[root] = componentCount++;
+            componentOf[cell] = rootComponent[root];
+            sizes[componentOf[cell] + 1]++;
+        }
+        int[] start = new int[componentCount + 1];
+        for (int c = 0; c < componentCount; c++) start[c + 1] = start[c] + sizes[c + 1];
+        int[] members = new int[start[componentCount]];
+        int[] fill = Arrays.copyOf(start, componentCount);
+        for (int cell : frontierCells) {
+            members[fill[componentOf[cell]]++] = cell;
+        }
+
+        // ────── Solve every component, through the transposition cache ──────
+        ComponentSolution[] solutions = new ComponentSolution[componentCount];
+        int[] stamp = new int[cells];
+        int[] localIndex = new int[cells];
+        for (int c = 0; c < componentCount; c++) {
+            solutions[c] = solveComponent(game, members, start[c], start[c + 1], stamp, c + 1, localIndex);
+            if (!solutions[c].solved) poolSize += solutions[c].cells;
+        }
+
+        // ────── Combine components with the unconstrained pool ──────
+        int minesLeft = game.mineCount() - game.flagsCount();
+        int frontierMines = 0;
+        double[][] scaled = new double[componentCount][];
+        for (int c = 0; c < componentCount; c++) {
+            if (!solutions[c].solved) continue;
+            scaled[c] = normalized(solutions[c].layouts);
+            frontierMines += solutions[c].cells;
+        }
+
+        double[] weight = poolWeights(poolSize, minesLeft, frontierMines);
+        double[][] prefix = new double[componentCount + 1][];
+        double[][] suffix = new double[componentCount + 1][];
+        prefix[0] = new double[]{1};
+        for (int c = 0; c < componentCount; c++) prefix[c + 1] = convolve(prefix[c], scaled[c]);
+        suffix[componentCount] = new double[]{1};
+        for (int c = componentCount - 1; c >= 0; c--) suffix[c] = convolve(suffix[c + 1], scaled[c]);
+
+        double[] all = prefix[componentCount];
+        double total = 0;
+        for (int t = 0; t < all.length; t++) total += all[t] * weight[t];
+        boolean consistent = total > 0;
+        if (!consistent) {
+            // the flags contradict the numbers: ignore the global mine count and report no certainties
+            Arrays.fill(weight, 1);
+            total = 0;
+            for (double v : all) total += v;
+        }
+
+        int[] safe = new int[cells], mines = new int[cells];
+        int safeCount = 0, mineCount = 0;
+        for (int c = 0; c < componentCount; c++) {
+            ComponentSolution solution = solutions[c];
+            if (!solution.solved || total == 0) continue;
+
+            double[] others = convolve(prefix[c], suffix[c + 1]);
+            double[] layoutWeight = new double[solution.layouts.length];
+            for (int k = 0; k < layoutWeight.length; k++) {
+                for (int t = 0; t < others.length && k + t < weight.length; t++) {
+                    layoutWeight[k] += others[t] * weight[k + t];
+                }
+            }
+
+            double scale = maxOf(solution.layouts);
+            for (int i = 0; i < solution.cells; i++) {
+                double mineWeight = 0;
+                boolean alwaysSafe = true, alwaysMine = true;
+                for (int k = 0; k < layoutWeight.length; k++) {
+                    if (solution.layouts[k] == 0 || layoutWeight[k] == 0) continue;
+                    double count = solution.cellMines[k * solution.cells + i];
+                    mineWeight += count / scale * layoutWeight[k];
+                    if (count != 0) alwaysSafe = false;
+                    if (count != solution.layouts[k]) alwaysMine = false;
+                }
+                int cell = members[start[c] + i];
+                probability[cell] = Math.min(1, mineWeight / total);
+                if (consistent && alwaysSafe) safe[safeCount++] = cell;
+                else if (consistent && alwaysMine) mines[mineCount++] = cell;
+            }
+        }
+
+        // unconstrained cells (and cells of components too large to enumerate) share one probability
+        if (poolSize > 0) {
+            double expected = 0;
+            boolean allSafe = true, allMines = true;
+            for (int t = 0; t < all.length; t++) {
+                double w = all[t] * weight[t];
+                if (w == 0) continue;
+                expected += w * (minesLeft - t);
+                if (minesLeft - t != 0) allSafe = false;
+                if (minesLeft - t != poolSize) allMines = false;
+            }
+            double poolProbability = total > 0 ? Math.max(0, Math.min(1, expected / total / poolSize)) : (double) minesLeft / poolSize;
+            for (int cell = 0; cell < cells; cell++) {
+                int row = cell / width, col = cell % width;
+                if (game.isRevealed(row, col) || game.isFlagged(row, col)) continue;
+                if (componentOf[cell] >= 0 && solutions[componentOf[cell]].solved) continue;
+                probability[cell] = poolProbability;
+                if (consistent && allSafe) safe[safeCount++] = cell;
+                else if (consistent && allMines) mines[mineCount++] = cell;
+            }
+        }
+
+        lastGame = game;
+        lastHash = game.zobristHash();
+        lastAnalysis = new Analysis(width, probability, Arrays.copyOf(safe, safeCount), Arrays.copyOf(mines, mineCount), consistent);
+        return lastAnalysis;
+    }
+
+    /**
+     * Hashes one component from the Zobrist keys of its covered cells, the numbers constraining them and the flags
+     * around those numbers, then solves it unless an identical component is already cached.
+     */
+    private static ComponentSolution solveComponent(MinesSweeper game, int[] members, int from, int to, int[] stamp, int stampValue, int[] localIndex) {
+        int width = game.width(), height = game.height();
+        int n = to - from;
+
+        long hash = 0;
+        for (int i = from; i < to; i++) {
+            hash ^= Zobrist.key(members[i], Zobrist.COVERED);
+            localIndex[members[i]] = i - from;
+        }
+
+        // collect the constraints (revealed numbers touching the component) in index order of discovery
+        int[]   constraintCells = new int[n * 8];
+        int     constraintCount = 0;
+        for (int i = from; i < to; i++) {
+            int row = members[i] / width, col = members[i] % width;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, height - 1); r++) {
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, width - 1); c++) {
+                    int cell = r * width + c;
+                    if (stamp[cell] == stampValue || game.revealedNumber(r, c) < 0) continue;
+                    stamp[cell] = stampValue;
+                    constraintCells[constraintCount++] = cell;
+                    hash ^= Zobrist.key(cell, game.revealedNumber(r, c));
+                }
+            }
+        }
+
+        int[]   remaining = new int[constraintCount];
+        int[][] variables = new int[constraintCount][];
+        int[]   buffer    = new int[8];
+        for (int k = 0; k < constraintCount; k++) {
+            int row = constraintCells[k] / width, col = constraintCells[k] % width;
+            int count = 0;
+            remaining[k] = game.revealedNumber(row, col);
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, height - 1); r++) {
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, width - 1); c++) {
+                    int cell = r * width + c;
+                    if (game.isFlagged(r, c)) {
+                        remaining[k]--;
+                        if (stamp[cell] != stampValue) {
+                            stamp[cell] = stampValue;
+                            hash ^= Zobrist.key(cell, Zobrist.FLAG);
+                        }
+                    } else if (!game.isRevealed(r, c)) {
+                        buffer[count++] = localIndex[cell];
+                    }
+                }
+            }
+            variables[k] = Arrays.copyOf(buffer, count);
+        }
+
+        long key = hash ^ (width * 0x9E3779B97F4A7C15L);
+        ComponentSolution solution = CACHE.get(key);
+        if (solution == null || solution.cells != n) {
+            solution = new ComponentEnumerator(n, variables, remaining).solve();
+            CACHE.put(key, solution);
+        }
+        return solution;
+    }
+
+    /**
+     * Depth-first enumeration of the mine layouts of one component, pruning on every constraint as soon as it
+     * has too many mines or too few unassigned cells left.
+     */
+    private static final class ComponentEnumerator {
+        private final int     n;
+        private final int[][] variables;
+        private final int[][] constraintsOf;
+        private final int[]   remaining;
+        private final int[]   mines;
+        private final int[]   unassigned;
+        private final int[]   order;
+        private final boolean[] value;
+        private final double[] layouts;
+        private final double[] cellMines;
+        private long    nodes;
+        private boolean aborted;
+
+        ComponentEnumerator(int n, int[][] variables, int[] remaining) {
+            this.n = n;
+            this.variables = variables;
+            this.remaining = remaining;
+            this.mines = new int[remaining.length];
+            this.unassigned = new int[remaining.length];
+            this.value = new boolean[n];
+            this.layouts = new double[n + 1];
+            this.cellMines = new double[(n + 1) * n];
+
+            int[] degree = new int[n];
+            for (int k = 0; k < variables.length; k++) {
+                unassigned[k] = variables[k].length;
+                for (int v : variables[k]) degree[v]++;
+            }
+            constraintsOf = new int[n][];
+            for (int v = 0; v < n; v++) constraintsOf[v] = new int[degree[v]];
+            Arrays.fill(degree, 0);
+            for (int k = 0; k < variables.length; k++) {
+                for (int v : variables[k]) constraintsOf[v][degree[v]++] = k;
+            }
+            order = breadthFirstOrder();
+        }
+
+        ComponentSolution solve() {
+            enumerate(0, 0);
+            return aborted ? new ComponentSolution(n, false, new double[n + 1], new double[0])
+                           : new ComponentSolution(n, true, layouts, cellMines);
+        }
+
+        private void enumerate(int depth, int placed) {
+            if (aborted) return;
+            if (++nodes > Config.Solver.MAX_COMPONENT_NODES) {
+                aborted = true;
+                return;
+            }
+            if (depth == n) {
+                layouts[placed]++;
+                for (int v = 0; v < n; v++) {
+                    if (value[v]) cellMines[placed * n + v]++;
+                }
+                return;
+            }
+
+            int v = order[depth];
+            for (int mine = 0; mine <= 1; mine++) {
+                if (assign(v, mine)) {
+                    value[v] = mine == 1;
+                    enumerate(depth + 1, placed + mine);
+                }
+                unassign(v, mine);
+            }
+            value[v] = false;
+        }
+
+        // applies the assignment to every constraint of v and reports whether they can all still be satisfied
+        private boolean assign(int v, int mine) {
+            boolean feasible = true;
+            for (int k : constraintsOf[v]) {
+                mines[k] += mine;
+                unassigned[k]--;
+                if (mines[k] > remaining[k] || mines[k] + unassigned[k] < remaining[k]) feasible = false;
+            }
+            return feasible;
+        }
+
+        private void unassign(int v, int mine) {
+            for (int k : constraintsOf[v]) {
+                mines[k] -= mine;
+                unassigned[k]++;
+            }
+        }
+
+        // neighbouring cells are assigned one after another so constraints close (and prune) early
+        private int[] breadthFirstOrder() {
+            int[] result = new int[n];
+            boolean[] seen = new boolean[n];
+            int head = 0, tail = 0;
+            for (int s = 0; s < n; s++) {
+                if (seen[s]) continue;
+                seen[s] = true;
+                result[tail++] = s;
+                while (head < tail) {
+                    int v = result[head++];
+                    for (int k : constraintsOf[v]) {
+                        for (int u : variables[k]) {
+                            if (!seen[u]) {
+                                seen[u] = true;
+                                result[tail++] = u;
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    // ────── Helpers ──────
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a), rb = find(parent, b);
+        if (ra != rb) parent[ra] = rb;
+    }
+
+    private static double maxOf(double[] values) {
+        double max = 0;
+        for (double v : values) max = Math.max(max, v);
+        return max == 0 ? 1 : max;
+    }
+
+    // scaling a component's counts by a constant does not change any probability, and keeps products in range
+    private static double[] normalized(double[] values) {
+        double max = maxOf(values);
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) result[i] = values[i] / max;
+        return result;
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        if (b == null) return a;
+        if (a == null) return b;
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) continue;
+            for (int j = 0; j < b.length; j++) result[i + j] += a[i] * b[j];
+        }
+        return result;
+    }
+
+    /**
+     * Relative number of ways to place the remaining {@code minesLeft - t} mines in the unconstrained pool,
+     * for every number {@code t} of mines on the frontier.
+     */
+    private static double[] poolWeights(int poolSize, int minesLeft, int frontierCells) {
+        double[] logFactorial = new double[poolSize + 1];
+        for (int i = 1; i <= poolSize; i++) logFactorial[i] = logFactorial[i - 1] + Math.log(i);
+
+        double[] weight = new double[frontierCells + 1];
+        double base = Double.NEGATIVE_INFINITY;
+        for (int t = 0; t <= frontierCells; t++) {
+            int m = minesLeft - t;
+            if (m < 0 || m > poolSize) continue;
+            base = Math.max(base, logFactorial[poolSize] - logFactorial[m] - logFactorial[poolSize - m]);
+        }
+        for (int t = 0; t <= frontierCells; t++) {
+            int m = minesLeft - t;
+            if (m < 0 || m > poolSize) continue;
+            weight[t] = Math.exp(logFactorial[poolSize] - logFactorial[m] - logFactorial[poolSize - m] - base);
+        }
+        return weight;
+    }
+}
@@ -1,3 +1,5 @@
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
 
 
@@ -5,7 +7,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 public class MinesSweeper implements Game{
@@ -15,15 +17,22 @@ public class MinesSweeper implements Game{
         boolean visited;
         boolean flag;
     }
-    private enum          Level {
+    enum                  Level {
         BEGINNER, INTERMEDIATE, EXPERT, CUSTOM
     }
     private static class  GameState{
         int         width, height, mineCount;
         boolean     isSetUp;
+        int         firstRow = -1, firstCol = -1;   // first opened cell, the layout is generated around it
         int         flagsCount;
         int         unrevealedCount;
         Level       level;
+        long        seed;
+        long        zobrist;    // Zobrist hash of the revealed and flagged cells
+        int         min3BV, max3BV = Integer.MAX_VALUE;
+        int         threeBV;
+        long        generationAttempts;
+        double      samplesPerSecond;
     }
     private static class  StatusUpdater{
         private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
@@ -85,6 +94,30 @@ public class MinesSweeper implements Game{
     private GameState     state;
     private StatusUpdater status;
     private Cell[][]      board;
+    private IndexedIntSet frontier;    // covered, unflagged cells next to a revealed cell
+    private IndexedIntSet batch;       // cells waiting to be drawn, while a batch is open
+    private IndexedIntSet batchCells;  // storage of batch, reused by every batch
+    private int           batchDepth;
+    private boolean       batchMinesLeft;
+    private MinesSolver   solver;
+    private ReplayRecorder recorder;
+    private GameEventBus  events;      // null when nobody listens
+    private long          resumedElapsedMillis = -1;   // set on games loaded from a snapshot
+    private final CommandParser commands = new CommandParser();
+    private TerminalInput keys;        // raw keyboard input, null when reading lines
+    private int           cursorRow, cursorCol;
+    private boolean       cursorVisible;
+    private int           pressedCell = -1;    // cell under the last left or middle button press
+    private int           pressedButton;       // the button of that press
+    private final AnsiOptimizer output = new AnsiOptimizer();   // shortens the frames drawn at once
+    private ScreenMirror        mirror;   // the screen as the game drew it, to take the help away; null without a terminal
+    private TerminalLayout      layout;
+    private PerformanceHud      hud;      // only for games played on a terminal
+    private long                inputNanos;   // when the input being answered arrived, see PerformanceHud
+
+    private static final Pattern CUSTOM_INPUT_PATTERN = Pattern.compile("^(?i)(\\d+|q)$");  // Accept digits or 'q' (case-insensitive)
+    private boolean       headless;
+    private boolean       offscreen;           // draws like a played game, but runs no clock
 
 
 
@@ -99,11 +132,47 @@ public class MinesSweeper implements Game{
      * @param sc The Scanner object for reading user input.
      */
     public static void  launchGame(Scanner sc){
-        int winsCount        = 0;
-        int lossesCount      = 0;
-        int totalTimePlaying = 0; // in second
-        int totalGamesPlayed = 0;
-        int gamesQuited      = 0;
+        PlayerStatsStore stats = PlayerStatsStore.open(Path.of(Config.MineSweeper.STATS_FILE));
+        Leaderboard leaderboard = Leaderboard.open(Path.of(Config.MineSweeper.LEADERBOARD_FILE));
+        TimingHistograms timings = TimingHistograms.open(Path.of(Config.MineSweeper.TIMINGS_FILE));
+        GameEventBus events = new GameEventBus(Config.MineSweeper.EVENT_BUFFER_SIZE);
+        AtomicReference<String> lastRank = new AtomicReference<>();
+        // every sink writes files on a bus thread of its own, so neither the game nor the other sinks wait for a slow disk;
+        // the menu waits for them after each game (awaitIdle below)
+        events.subscribe(Config.MineSweeper.EVENT_BATCH_SIZE, batch -> {
+            for (GameEvent event : batch){
+                if (event.thinkMillis >= 0) timings.recordThink(event.level, event.thinkMillis);
+                if (!isCounted(event)) continue;
+                if (event.outcome.result().isWin()) timings.recordSolve(event.level, (long) event.outcome.result().getTimeSpent());
+                timings.save();
+            }
+        });
+        events.subscribe(Config.MineSweeper.EVENT_BATCH_SIZE, batch -> {
+            for (GameEvent event : batch){
+                if (!isCounted(event)) continue;
+                GameEvent.Outcome outcome = event.outcome;
+                stats.add(event.level, outcome.result(), outcome.width(), outcome.height(), outcome.mineCount(), outcome.threeBV());
+            }
+        });
+        events.subscribe(Config.MineSweeper.EVENT_BATCH_SIZE, batch -> {
+            for (GameEvent event : batch){
+                if (!isCounted(event)) continue;
+                GameEvent.Outcome outcome = event.outcome;
+                String rank = null;
+                if (outcome.result().isWin()){
+                    String key = Leaderboard.keyOf(event.level, outcome.width(), outcome.height(), outcome.mineCount());
+                    int place = leaderboard.submit(key, outcome.result().getTimeSpent());
+                    if (place > 0) rank = String.format(AppTexts.MinesSweeper.LAST_RANK_FORMAT, place, leaderboard.size(key), key);
+                }
+                lastRank.set(rank);
+            }
+        });
+        events.subscribe(Config.MineSweeper.EVENT_BATCH_SIZE, batch -> {
+            for (GameEvent event : batch){
+                GameEvent.Outcome outcome = event.outcome;
+                if (outcome != null && outcome.replay() != null) outcome.replay().finish(outcome.replayOutcome(), outcome.coveredCells(), outcome.flags(), outcome.zobrist());
+            }
+        });
 
         while (true) {
             Utils.setWindowTitle("MinesSweeper Menu");
@@ -111,12 +180,7 @@ public class MinesSweeper implements Game{
             Utils.clearScreen(2);
 
             // Display the game title with animation
-            Utils.slowPrintMultiLine(
-                    AppTexts.MinesSweeper.GAME_TITLE,
-                    AppTexts.MinesSweeper.GAME_TITLE_COLOR,
-                    Config.MineSweeper.Coordinates.GAME_TITLE_ROW,
-                    Config.MineSweeper.Coordinates.GAME_TITLE_COL,
-                    1000  );
+            showTitle(1000);
 
             MinesSweeper game;
 
@@ -125,16 +189,32 @@ public class MinesSweeper implements Game{
             Utils.slowPrint(AppTexts.MinesSweeper.WELCOME_MESSAGE, 1000);
 
             // Show Player Status
-            int seconds = totalTimePlaying%60;
-            int minutes = totalTimePlaying/60;
-
-            String formatedStatus = String.format(AppTexts.MinesSweeper.USER_STATUS_FORMAT, totalGamesPlayed, winsCount, lossesCount, gamesQuited, minutes, seconds);
+            String formatedStatus = formatPlayerStats(stats);
             Utils.slowPrintMultiLine(
                     formatedStatus,
                     AppTexts.MinesSweeper.USER_STATUS_COLOR,
                     Config.MineSweeper.Coordinates.USER_STATUS_ROW,
                     Config.MineSweeper.Coordinates.USER_STATUS_COL,
                     700  );
+            Utils.slowPrintMultiLine(
+                    formatTimingStats(timings),
+                    AppTexts.MinesSweeper.TIMING_STATUS_COLOR,
+                    Config.MineSweeper.Coordinates.TIMING_STATUS_ROW,
+                    Config.MineSweeper.Coordinates.TIMING_STATUS_COL,
+                    700  );
+            if (lastRank.get() != null){
+                Utils.moveCursorTo(Config.MineSweeper.Coordinates.LAST_RANK_ROW, Config.MineSweeper.Coordinates.LAST_RANK_COL);
+                System.out.print(lastRank.get());
+            }
+            if (events.dropped() > 0 || events.blocked() > 0 || events.failedBatches() > 0){
+                Utils.moveCursorTo(Config.MineSweeper.Coordinates.EVENT_METRICS_ROW, Config.MineSweeper.Coordinates.EVENT_METRICS_COL);
+                System.out.printf(AppTexts.MinesSweeper.EVENT_METRICS_FORMAT, events.dropped(), events.published(), events.blocked(), events.failedBatches(), events.maxLag());
+            }
+            AsyncTerminalWriter output = AsyncTerminalWriter.installed();
+            if (output != null && (output.blocked() > 0 || output.discardedBytes() > 0 || output.failedWrites() > 0)){
+                Utils.moveCursorTo(Config.MineSweeper.Coordinates.OUTPUT_METRICS_ROW, Config.MineSweeper.Coordinates.OUTPUT_METRICS_COL);
+                System.out.printf(AppTexts.MinesSweeper.OUTPUT_METRICS_FORMAT, output.blocked(), output.discardedBytes(), output.failedWrites(), output.maxQueuedBuffers(), output.writeLatency().percentile(100) / 1e6);
+            }
 
             // Ask user to select a difficulty level
             Utils.moveCursorTo(Config.MineSweeper.Coordinates.MENU_SELECT_DIFFICULTY_ROW,Config.MineSweeper.Coordinates.MENU_SELECT_DIFFICULTY_COL);
@@ -174,6 +254,7 @@ public class MinesSweeper implements Game{
                 case "q":
                 case "Q":
                     // Quit the game
+                    stats.close();
                     return;
 
                 case "1":
@@ -191,16 +272,10 @@ public class MinesSweeper implements Game{
 
                     // Clear screen and reprint game title
                     Utils.clearScreen(2);
-                    Utils.slowPrintMultiLine(
-                            AppTexts.MinesSweeper.GAME_TITLE,
-                            AppTexts.MinesSweeper.GAME_TITLE_COLOR,
-                            Config.MineSweeper.Coordinates.GAME_TITLE_ROW,
-                            Config.MineSweeper.Coordinates.GAME_TITLE_COL,
-                            0
-                    );
+                    showTitle(0);
 
                     // Define input pattern: digits or 'q'
-                    Pattern inputPattern = Pattern.compile("^(?i)(\\d+|q)$");  // Accept digits or 'q' (case-insensitive)
+                    Pattern inputPattern = CUSTOM_INPUT_PATTERN;
 
                     // ────── Input Row Count ──────
                     Utils.moveCursorTo(Config.MineSweeper.Coordinates.INPUT_HEIGHT_ROW, Config.MineSweeper.Coordinates.INPUT_HEIGHT_COL);
@@ -264,6 +339,17 @@ public class MinesSweeper implements Game{
                     game = new MinesSweeper(col, row, mines, Level.CUSTOM);
                     break;
 
+                case "5":
+                    // Resume the suspended game, if any
+                    game = GameSnapshot.load(Path.of(Config.MineSweeper.SAVE_FILE));
+                    if (game == null){
+                        Utils.moveCursorTo(Config.MineSweeper.Coordinates.WRONG_OPTION_ERROR_ROW, Config.MineSweeper.Coordinates.WRONG_OPTION_ERROR_COL);
+                        System.out.print(AppTexts.MinesSweeper.NO_SUSPENDED_GAME);
+                        Utils.sleep(1500);
+                        continue;
+                    }
+                    break;
+
 
                 // Shouldn't be reachable due to earlier validation, but safe fallback
                 default:
@@ -271,64 +357,155 @@ public class MinesSweeper implements Game{
             }
 
             // Start the game session
-            GameResult result =  game.startPlaying(sc);
-            totalGamesPlayed++;
-            totalTimePlaying += (int) result.getTimeSpent()/1000;
-            if      (result.isWin()) winsCount++;
-            else if (result.isLost()) lossesCount++;
-            else if (result.isQuited()) gamesQuited++;
+            game.events = events;
+            game.layout = TerminalLayout.of(game.state.level.toString(), game.state.width, game.state.height);
+            game.mirror = ScreenMirror.attach(game.layout);
+            try {
+                game.startPlaying(sc);
+            } finally {
+                if (game.mirror != null) game.mirror.detach();
+            }
+            // the sinks may still be working through the last moves and the end of the game
+            events.awaitIdle(Config.MineSweeper.EVENT_DRAIN_MILLIS);
+        }
+    }
+
+    /**
+     * True for the end of a game that counts in the statistics: suspended games are not over yet.
+     */
+    private static boolean isCounted(GameEvent event){
+        return event.outcome != null && !event.outcome.result().isSuspended();
+    }
+
+    private static String formatPlayerStats(PlayerStatsStore stats){
+        long totalSeconds = stats.total(PlayerStatsStore.TIME_MILLIS) / 1000;
+        List<Object> values = new ArrayList<>(List.of(
+                stats.total(PlayerStatsStore.GAMES), stats.total(PlayerStatsStore.WINS), stats.total(PlayerStatsStore.LOSSES),
+                stats.total(PlayerStatsStore.QUITS), totalSeconds / 60, totalSeconds % 60));
+
+        for (Level level : Level.values()){
+            long best = stats.get(level, PlayerStatsStore.BEST_WIN_MILLIS) / 1000;
+            values.add(AppTexts.MinesSweeper.USER_STATUS_LEVELS[level.ordinal()]);
+            values.add(stats.get(level, PlayerStatsStore.WINS));
+            values.add(stats.get(level, PlayerStatsStore.GAMES));
+            values.add(stats.get(level, PlayerStatsStore.BEST_WIN_MILLIS) == Long.MAX_VALUE
+                    ? AppTexts.MinesSweeper.NO_BEST_TIME
+                    : String.format(AppTexts.MinesSweeper.BEST_TIME_FORMAT, best / 60, best % 60));
         }
+        return String.format(AppTexts.MinesSweeper.USER_STATUS_FORMAT, values.toArray());
+    }
+
+    private static String formatTimingStats(TimingHistograms timings){
+        List<Object> values = new ArrayList<>();
+        for (int section = 0; section < 2; section++){
+            for (Level level : Level.values()){
+                LogHistogram histogram = section == 0 ? timings.solveTimes(level) : timings.thinkTimes(level);
+                values.add(AppTexts.MinesSweeper.USER_STATUS_LEVELS[level.ordinal()]);
+                for (double percent : new double[]{50, 90, 99}){
+                    values.add(histogram.getCount() == 0
+                            ? AppTexts.MinesSweeper.NO_BEST_TIME
+                            : String.format(AppTexts.MinesSweeper.SECONDS_FORMAT, histogram.percentile(percent) / 1000.0));
+                }
+            }
+        }
+        return String.format(AppTexts.MinesSweeper.TIMING_STATUS_FORMAT, values.toArray());
     }
 
     private GameResult  startPlaying(Scanner sc){
         Utils.setWindowTitle("MinesSweeper");
         showGameLayout(1500);
+        if (resumedElapsedMillis >= 0 && state.isSetUp){
+            timer.startTimer(resumedElapsedMillis);
+        }
+        // a recording must start from the first move, resumed games are not recorded
+        if (Config.MineSweeper.RECORD_REPLAYS && resumedElapsedMillis < 0){
+            recorder = ReplayRecorder.create(Path.of(Config.MineSweeper.REPLAY_DIRECTORY), state.width, state.height, state.mineCount, state.min3BV, state.max3BV, state.seed);
+        }
+        if (Config.MineSweeper.RAW_INPUT) startKeyboard();
+        followTerminalSize();   // too small already, or resized during the animations
+        if (mirror != null) hud = new PerformanceHud();
+        publish(GameEvent.Type.STARTED, -1, -1, -1);
 
         GameResult result = new GameResult();
         // GAME LOOP
         // run the game until all the empty blocks are gone
         while (state.unrevealedCount != state.mineCount){
-            int[] r = getInput(sc);
-            while (r == null){
-                r = getInput(sc);
+            // the terminal fell so far behind that output was dropped, see Config.Display.OUTPUT_OVERFLOW
+            if (AsyncTerminalWriter.takeDiscarded()) showGameLayout(0);
+            long asked = System.nanoTime();
+            CommandParser input = keys != null ? readKeys() : getInput(sc);
+            while (input == null){
+                input = keys != null ? readKeys() : getInput(sc);
             }
+            char mode = input.get(0).mode;
 
-
-            if (r[0] == 'q'){
+            if (mode == 'q'){
+                stopKeyboard();
                 double totalTime = timer.stopTimer();
                 status.shutdown();
                 result.quit(totalTime);
+                publishEnd(GameEvent.Type.QUIT, totalTime, result);
+                Utils.clearScreen(2);
+                status.cancelDelay();
+                return result;
+            }
+            else if (mode == 's'){
+                long elapsed = timer.elapsedMillis();
+                if (!GameSnapshot.save(Path.of(Config.MineSweeper.SAVE_FILE), this, elapsed)){
+                    Utils.moveCursorTo(Config.MineSweeper.Coordinates.errorLineRow, Config.MineSweeper.Coordinates.errorLineCol);
+                    System.out.print(AppTexts.MinesSweeper.SUSPEND_FAILED);
+                    continue;
+                }
+                stopKeyboard();
+                timer.stopTimer();
+                status.shutdown();
+                result.suspend(elapsed);
+                publishEnd(GameEvent.Type.QUIT, elapsed, result);
                 Utils.clearScreen(2);
                 status.cancelDelay();
                 return result;
             }
-            else if(r[0] == 'v'){
-                int row = r[1];
-                int col = r[2];
-                if (!openCell(row, col)){
+            else if (mode == 'h'){
+                status.cancelDelay();
+                timer.pauseTimer();
+                boolean overlay = mirror != null && helpFits();
+                if (overlay) showHelpOverlay();
+                else {
+                    Utils.clearScreen(2);
+                    System.out.print(AppTexts.MinesSweeper.HELPER);
+                    Utils.moveCursorTo(Config.MineSweeper.Coordinates.WAIT_FOR_ENTER_LABEL_ROW, Config.MineSweeper.Coordinates.WAIT_FOR_ENTER_LABEL_COL);
+                    Utils.slowPrint(AppTexts.MinesSweeper.WAIT_FOR_ENTER_LABEL, 500);
+                }
+                if (keys != null) awaitEnterKey();
+                else Utils.inputLine(sc);
+                if (overlay){
+                    mirror.endOverlay();
+                    followTerminalSize();   // resized while the help was up
+                    if (hud != null) hud.refresh(mirror);
+                }
+                else showGameLayout(0);
+            }
+            else if (mode == 'p'){
+                if (hud != null) hud.toggle(mirror);
+            }
+            else {
+                long bytes = hud != null ? mirror.bytes() : 0, escapes = hud != null ? mirror.escapeSequences() : 0;
+                boolean alive = applyMoves(input, asked);
+                if (hud != null){
+                    hud.recordMove(inputNanos, mirror.bytes() - bytes, mirror.escapeSequences() - escapes);
+                    hud.refresh(mirror);
+                }
+                if (!alive){
                     double totalTime = timer.stopTimer();
                     status.shutdown();
                     result.lost(totalTime);
+                    publishEnd(GameEvent.Type.LOST, totalTime, result);
                     break;
                 }
             }
-            else if (r[0] == 'f'){
-                int row = r[1];
-                int col = r[2];
-                markFlag(row, col);
-            }
-            else if (r[0] == 'h'){
-                status.cancelDelay();
-                timer.pauseTimer();
-                Utils.clearScreen(2);
-                System.out.print(AppTexts.MinesSweeper.HELPER);
-                Utils.moveCursorTo(Config.MineSweeper.Coordinates.WAIT_FOR_ENTER_LABEL_ROW, Config.MineSweeper.Coordinates.WAIT_FOR_ENTER_LABEL_COL);
-                Utils.slowPrint(AppTexts.MinesSweeper.WAIT_FOR_ENTER_LABEL, 500);
-                Utils.inputLine(sc);
-                showGameLayout(0);
-            }
         }
         status.cancelDelay();
+        stopKeyboard();
 
 
 
@@ -356,6 +533,7 @@ public class MinesSweeper implements Game{
             double totalTime = timer.stopTimer();
             status.shutdown();
             result.win(totalTime);
+            publishEnd(GameEvent.Type.WON, totalTime, result);
             status.showStatus(StatusUpdater.Mode.win);
             winAnimation();
         }
@@ -369,12 +547,330 @@ public class MinesSweeper implements Game{
 
 
 
+    /**
+     * Applies the moves of one input line in order ('v', 'f' and 'a'), drawn as a single frame.
+     * Stops at the first mine opened, or when the board is cleared.
+     *
+     * @return false if a mine was opened
+     */
+    boolean         applyMoves(CommandParser input, long askedNanos){
+        long thinkMillis = (System.nanoTime() - askedNanos) / 1_000_000;
+
+        boolean alive = true;
+        beginBatch();
+        for (int i = 0; i < input.count() && alive && state.unrevealedCount != state.mineCount; i++){
+            CommandParser.Command command = input.get(i);
+            if (recorder != null) recorder.recordMove((byte) command.mode, command.row, command.col);
+            long think = i == 0 ? thinkMillis : -1;
+
+            if (command.mode == 'v'){
+                boolean chord = isRevealed(command.row, command.col);
+                long start = System.nanoTime();
+                alive = openCell(command.row, command.col);
+                if (hud != null) hud.recordOpenCell(System.nanoTime() - start);
+                publish(chord ? GameEvent.Type.CHORDED : GameEvent.Type.OPENED, command.row, command.col, think);
+            }
+            else if (command.mode == 'f'){
+                boolean toggles = !isRevealed(command.row, command.col);
+                markFlag(command.row, command.col);
+                if (toggles) publish(isFlagged(command.row, command.col) ? GameEvent.Type.FLAGGED : GameEvent.Type.UNFLAGGED, command.row, command.col, think);
+            }
+            else if (command.mode == 'a'){
+                alive = autoResolve();
+                publish(GameEvent.Type.AUTO_RESOLVED, -1, -1, think);
+            }
+            if (alive && recorder != null) recorder.keyframeIfDue(this);
+        }
+        endBatch();
+        return alive;
+    }
+
+    private void        publish(GameEvent.Type type, int row, int col, long thinkMillis){
+        if (events != null) events.publish(new GameEvent(type, state.level, row, col, timer.elapsedMillis(), thinkMillis));
+    }
+
+    /**
+     * Publishes the end of the game with its result and the replay recording, which the replay sink closes. Without a
+     * bus, or if a sink did not get the end, the recording is closed here; closing it twice does nothing.
+     */
+    private void        publishEnd(GameEvent.Type type, double totalMillis, GameResult result){
+        byte replayOutcome = type == GameEvent.Type.WON ? ReplayFormat.WIN : type == GameEvent.Type.LOST ? ReplayFormat.LOST : ReplayFormat.QUIT;
+        GameEvent.Outcome outcome = new GameEvent.Outcome(result, state.width, state.height, state.mineCount, state.threeBV,
+                recorder, replayOutcome, state.unrevealedCount, state.flagsCount, state.zobrist);
+        recorder = null;
+        boolean delivered = events != null && events.publish(new GameEvent(type, state.level, -1, -1, (long) totalMillis, -1, outcome));
+        if (!delivered && outcome.replay() != null) outcome.replay().finish(replayOutcome, outcome.coveredCells(), outcome.flags(), outcome.zobrist());
+    }
+
+    // ────── Keyboard input ──────
+
+    private void        startKeyboard(){
+        keys = TerminalInput.start(Config.MineSweeper.MOUSE_INPUT);
+        if (keys == null) return;
+        cursorRow = state.height / 2;
+        cursorCol = state.width / 2;
+        cursorVisible = true;
+        renderCell(cursorRow, cursorCol);
+    }
+
+    private void        stopKeyboard(){
+        if (keys == null) return;
+        keys.stop();
+        keys = null;
+        cursorVisible = false;
+        renderCell(cursorRow, cursorCol);
+    }
+
+    /**
+     * Handles key presses until one of them is a command: arrow keys only move the cell cursor.
+     */
+    private CommandParser readKeys(){
+        showPrompt(AppTexts.MinesSweeper.KEY_PROMPT);
+        status.showStatusWithDelay(StatusUpdater.Mode.normal, 150);
+        timer.unpauseTimer();
+
+        while (true){
+            int event;
+            try {
+                // with the HUD up, waking up now and then keeps its figures live
+                event = hud != null && hud.isVisible() ? keys.take(Config.Display.HUD_REFRESH_MILLIS) : keys.take();
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                return commands.set('q', 0, 0);
+            }
+            if (event == 0){
+                hud.refresh(mirror);
+                continue;
+            }
+            inputNanos = keys.takenArrival();
+
+            switch (InputDecoder.typeOf(event)){
+                case InputDecoder.UP    -> moveCellCursor(-1, 0);
+                case InputDecoder.DOWN  -> moveCellCursor(1, 0);
+                case InputDecoder.LEFT  -> moveCellCursor(0, -1);
+                case InputDecoder.RIGHT -> moveCellCursor(0, 1);
+                case InputDecoder.MOUSE -> {
+                    if (mouseCommand(event)) return commands;
+                }
+                case InputDecoder.RESIZE -> {
+                    if (mirror != null) followTerminalSize();
+                    else showGameLayout(0);
+                }
+                case InputDecoder.CHAR  -> {
+                    char key = Character.toLowerCase((char) InputDecoder.payloadOf(event));
+                    // opening a revealed number is a chord, see openCell
+                    if (key == ' ' || key == '\n' || key == 'v' || key == 'c') return commands.set('v', cursorRow, cursorCol);
+                    if (key == 'f') return commands.set('f', cursorRow, cursorCol);
+                    if (key == 'a' || key == 'q' || key == 's' || key == 'h' || key == 'p') return commands.set(key, 0, 0);
+                    if (key == ':') return readCommandLine();
+                }
+                default -> { }
+            }
+        }
+    }
+
+    /**
+     * Reads a line of moves typed after ':', as in line mode: Enter applies it, Escape gives it up, Backspace erases.
+     *
+     * @return the moves, or null if the line was given up or is not valid
+     */
+    private CommandParser readCommandLine(){
+        showPrompt(AppTexts.MinesSweeper.INPUT_PROMPT);
+        StringBuilder line = new StringBuilder();
+        while (true){
+            int event;
+            try {
+                event = keys.take();
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                return commands.set('q', 0, 0);
+            }
+            switch (InputDecoder.typeOf(event)){
+                case InputDecoder.ESCAPE -> {
+                    return null;
+                }
+                case InputDecoder.RESIZE -> {
+                    if (mirror != null) followTerminalSize();
+                }
+                case InputDecoder.CHAR -> {
+                    char c = (char) InputDecoder.payloadOf(event);
+                    if (c == '\n'){
+                        inputNanos = keys.takenArrival();
+                        timer.pauseTimer();
+                        status.showStatus(StatusUpdater.Mode.processing);
+                        return parseLine(line.toString().trim());
+                    }
+                    if ((c == '\b' || c == 0x7F) && !line.isEmpty()){
+                        line.setLength(line.length() - 1);
+                        System.out.print("\b \b");
+                    } else if (c >= ' ' && c != 0x7F){
+                        line.append(c);
+                        System.out.print(c);
+                    }
+                    System.out.flush();
+                }
+                default -> { }
+            }
+        }
+    }
+
+    /**
+     * Prints a prompt at the input row, over the whole of each of its lines so that a longer prompt leaves nothing.
+     */
+    private void        showPrompt(String prompt){
+        Utils.moveCursorTo(Config.MineSweeper.Coordinates.getInputRow, Config.MineSweeper.Coordinates.getInputCol);
+        System.out.print(prompt.replace("\n", Utils.CLEAR_LINE_TO_END + "\n"));
+        Utils.clearLine(0);
+    }
+
+    /**
+     * Keeps the screen right after the terminal was resized: the mirror draws again only what a smaller size lost.
+     * Without a mirror, a resize draws the whole game again.
+     */
+    private void        followTerminalSize(){
+        int[] size = keys != null ? keys.lastSize() : null;
+        if (size != null && mirror != null) mirror.resize(size[0], size[1], layout);
+    }
+
+    /**
+     * Handles a mouse event: motion moves the cell cursor, a right press flags, and a left or middle click
+     * (press and release on the same cell) opens or chords.
+     *
+     * @return true if the event became a command, set in {@link #commands}
+     */
+    private boolean     mouseCommand(int event){
+        int cell = cellAt(InputDecoder.mouseRow(event), InputDecoder.mouseCol(event));
+        if (cell < 0) return false;
+        int row = cell / state.width, col = cell % state.width;
+        placeCellCursor(row, col);
+
+        int button = InputDecoder.mouseButton(event);
+        switch (InputDecoder.mouseAction(event)){
+            case InputDecoder.PRESS:
+                if (button == InputDecoder.RIGHT_BUTTON){
+                    commands.set('f', row, col);
+                    return true;
+                }
+                pressedCell = cell;
+                pressedButton = button;
+                return false;
+            case InputDecoder.RELEASE:
+                boolean click = cell == pressedCell;
+                pressedCell = -1;
+                if (!click) return false;
+                // a middle click chords a revealed number, and does nothing anywhere else
+                if (pressedButton == InputDecoder.MIDDLE_BUTTON && revealedNumber(row, col) <= 0) return false;
+                commands.set('v', row, col);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Maps a 1-based screen position to the index of the board cell drawn there, or -1.
+     */
+    private int         cellAt(int screenRow, int screenCol){
+        int row = screenRow - Config.MineSweeper.Coordinates.topLeftCell_row;
+        int x   = screenCol - Config.MineSweeper.Coordinates.topLeftCell_col;
+        if (row < 0 || row >= state.height || x < 0) return -1;
+        int col = x / Config.MineSweeper.CELL_CHARACTER_SIZE;
+        return col < state.width ? row * state.width + col : -1;
+    }
+
+    private void        awaitEnterKey(){
+        try {
+            keys.awaitEnter();
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Moves the cell cursor, repainting only the cell it leaves and the cell it enters, in one write.
+     */
+    private void        moveCellCursor(int rowDelta, int colDelta){
+        placeCellCursor(Utils.forceInRange(cursorRow + rowDelta, 0, state.height - 1), Utils.forceInRange(cursorCol + colDelta, 0, state.width - 1));
+    }
+
+    private void        placeCellCursor(int row, int col){
+        if (row == cursorRow && col == cursorCol) return;
+
+        int oldRow = cursorRow, oldCol = cursorCol;
+        cursorRow = row;
+        cursorCol = col;
+        StringBuilder frame = new StringBuilder(160);
+        frame.append(Utils.SAVE_CURSOR);
+        Utils.appendCursorTo(frame, Config.MineSweeper.Coordinates.topLeftCell_row + oldRow, Config.MineSweeper.Coordinates.topLeftCell_col + oldCol*Config.MineSweeper.CELL_CHARACTER_SIZE);
+        frame.append(cellGlyph(oldRow, oldCol));
+        Utils.appendCursorTo(frame, Config.MineSweeper.Coordinates.topLeftCell_row + row, Config.MineSweeper.Coordinates.topLeftCell_col + col*Config.MineSweeper.CELL_CHARACTER_SIZE);
+        frame.append(cellGlyph(row, col));
+        frame.append(Utils.RESTORE_CURSOR);
+        FramePacer.write(output.optimize(frame));
+    }
+
+
     // Basic functions
 
     private         MinesSweeper(int width, int height, int mine , Level level) {
         configureGame(width, height, mine , level);
     }
 
+    private         MinesSweeper(int width, int height, int mine , long seed, boolean headless) {
+        this.headless = headless;
+        configureGame(width, height, mine , levelOf(width, height, mine));
+        state.seed = seed;
+    }
+
+    /**
+     * Creates a game that never touches the terminal and starts no timer or status threads.
+     * The mine layout is fully determined by the seed, so simulations and tools can reproduce any game.
+     *
+     * @param width  number of columns
+     * @param height number of rows
+     * @param mines  number of mines
+     * @param seed   seed of the mine layout
+     * @return a new headless game, not set up until the first cell is opened
+     */
+    static MinesSweeper headless(int width, int height, int mines, long seed){
+        return new MinesSweeper(width, height, mines, seed, true);
+    }
+
+    /**
+     * Creates a headless game whose layout is re-sampled until its 3BV falls in [min3BV, max3BV].
+     */
+    static MinesSweeper headless(int width, int height, int mines, long seed, int min3BV, int max3BV){
+        MinesSweeper game = new MinesSweeper(width, height, mines, seed, true);
+        game.state.min3BV = min3BV;
+        game.state.max3BV = max3BV;
+        return game;
+    }
+
+    /**
+     * Creates a game that draws on {@code System.out} exactly like a played one, but starts no timer or status threads.
+     * Used to measure and check what the game writes, e.g. into a {@link VirtualScreen}.
+     */
+    static MinesSweeper offscreen(int width, int height, int mines, long seed, int min3BV, int max3BV){
+        MinesSweeper game = new MinesSweeper(width, height, mines, seed, false);
+        game.offscreen = true;
+        game.state.min3BV = min3BV;
+        game.state.max3BV = max3BV;
+        return game;
+    }
+
+    private static Level levelOf(int width, int height, int mines){
+        if (width == Config.MineSweeper.BEGINNER_WIDTH && height == Config.MineSweeper.BEGINNER_HEIGHT && mines == Config.MineSweeper.BEGINNER_MINES){
+            return Level.BEGINNER;
+        }
+        if (width == Config.MineSweeper.INTERMEDIATE_WIDTH && height == Config.MineSweeper.INTERMEDIATE_HEIGHT && mines == Config.MineSweeper.INTERMEDIATE_MINES){
+            return Level.INTERMEDIATE;
+        }
+        if (width == Config.MineSweeper.EXPERT_WIDTH && height == Config.MineSweeper.EXPERT_HEIGHT && mines == Config.MineSweeper.EXPERT_MINES){
+            return Level.EXPERT;
+        }
+        return Level.CUSTOM;
+    }
+
     private         MinesSweeper(int level){
         // Level Beginner
         if (level == 1){
@@ -400,6 +896,29 @@ public class MinesSweeper implements Game{
                     Config.MineSweeper.EXPERT_MINES,
                     Level.EXPERT);
         }
+
+        if (Config.MineSweeper.DIFFICULTY_BANDS){
+            applyDifficultyBand();
+        }
+    }
+
+    private void    applyDifficultyBand(){
+        switch (state.level){
+            case BEGINNER:
+                state.min3BV = Config.MineSweeper.BEGINNER_MIN_3BV;
+                state.max3BV = Config.MineSweeper.BEGINNER_MAX_3BV;
+                break;
+            case INTERMEDIATE:
+                state.min3BV = Config.MineSweeper.INTERMEDIATE_MIN_3BV;
+                state.max3BV = Config.MineSweeper.INTERMEDIATE_MAX_3BV;
+                break;
+            case EXPERT:
+                state.min3BV = Config.MineSweeper.EXPERT_MIN_3BV;
+                state.max3BV = Config.MineSweeper.EXPERT_MAX_3BV;
+                break;
+            default:
+                break;
+        }
     }
 
     private void    configureGame(int width, int height, int mine , Level level){
@@ -409,9 +928,12 @@ public class MinesSweeper implements Game{
         state.height = height;
         state.mineCount = mine;
         state.level = level;
+        state.seed = new Random().nextLong();
 
-        timer = new TimerManager(Config.MineSweeper.Coordinates.TIME_ROW, Config.MineSweeper.Coordinates.TIME_COL, AppTexts.MinesSweeper.TIME_FORMAT);
-        status = new StatusUpdater(Config.MineSweeper.Coordinates.EMOJI_ROW, Config.MineSweeper.Coordinates.box_topLeftCorner_col + (state.width*Config.MineSweeper.CELL_CHARACTER_SIZE)/2 - 2);
+        if (!headless){
+            timer = new TimerManager(Config.MineSweeper.Coordinates.TIME_ROW, Config.MineSweeper.Coordinates.TIME_COL, AppTexts.MinesSweeper.TIME_FORMAT);
+            status = new StatusUpdater(Config.MineSweeper.Coordinates.EMOJI_ROW, Config.MineSweeper.Coordinates.box_topLeftCorner_col + (state.width*Config.MineSweeper.CELL_CHARACTER_SIZE)/2 - 2);
+        }
 
         // creating board matrix
         this.board = new Cell[height][width];
@@ -421,6 +943,7 @@ public class MinesSweeper implements Game{
             }
         }
         state.unrevealedCount = state.width * state.height;
+        this.frontier = new IndexedIntSet(state.width * state.height);
     }
 
 
@@ -433,7 +956,7 @@ public class MinesSweeper implements Game{
         return Utils.isInRange(col, 0, state.width-1);
     }
 
-    private int[]   getInput(Scanner sc){
+    private CommandParser getInput(Scanner sc){
         Utils.moveCursorTo(Config.MineSweeper.Coordinates.getInputRow, Config.MineSweeper.Coordinates.getInputCol);
         System.out.print(AppTexts.MinesSweeper.INPUT_PROMPT);
         Utils.clearLine(0);
@@ -443,89 +966,71 @@ public class MinesSweeper implements Game{
         status.showStatusWithDelay(StatusUpdater.Mode.normal, 150);
         timer.unpauseTimer();
         String line = Utils.inputLine(sc).trim();
+        inputNanos = System.nanoTime();
         timer.pauseTimer();
         status.showStatus(StatusUpdater.Mode.processing);
+        return parseLine(line);
+    }
 
+    /**
+     * Parses a line of moves, typed in line mode or after ':', and checks they are on the board.
+     *
+     * @return the moves, or null after showing what is wrong with them
+     */
+    private CommandParser parseLine(String line){
         if (line.isEmpty()){
             return null;
         }
 
-        Matcher matcher = Pattern.compile("^(?i)((?:([fv])\\s+)?(\\d+)\\s+(\\d+)|[hq])$").matcher(line);
-
-
         // clear the error line (if there is last error
         Utils.moveCursorTo(Config.MineSweeper.Coordinates.errorLineRow, Config.MineSweeper.Coordinates.errorLineCol);
         Utils.clearLine(2);
 
 
-        char mode;
-        if (!matcher.matches()){
+        if (!commands.parse(line) || commands.count() == 0){
             System.out.print(AppTexts.MinesSweeper.INVALID_INPUT_FORMAT);
-//            return getInput(sc);
             return null; // To avoid repeated calls to getInput(sc) and recursion
         }
 
-        switch (matcher.group(1)){
-            case "Q":
-            case "q":
-                mode = 'q';
-                return new int[]{mode};
-            case "H":
-            case "h":
-                mode = 'h';
-                return new int[]{mode};
-            default:
-                int row = Integer.parseInt(matcher.group(3))-1;
-                int col = Integer.parseInt(matcher.group(4))-1;
-
-                // force in range
-                if (!isValidRow(row)){
-                    System.out.print(AppTexts.MinesSweeper.ROW_OUT_OF_RANGE);
-                    return null;
-                }
-                if (!isValidCol(col)){
-                    System.out.print(AppTexts.MinesSweeper.COL_OUT_OF_RANGE);
-                    return null;
-                }
-                mode = (matcher.group(2) != null && matcher.group(2).equalsIgnoreCase("f")) ? 'f' : 'v';
-                return new int[]{mode,row, col};
+        // a line is applied only if all of its moves are on the board
+        for (int i = 0; i < commands.count(); i++){
+            CommandParser.Command command = commands.get(i);
+            if (command.mode != 'v' && command.mode != 'f') continue;
+            if (!isValidRow(command.row)){
+                System.out.print(AppTexts.MinesSweeper.ROW_OUT_OF_RANGE);
+                return null;
+            }
+            if (!isValidCol(command.col)){
+                System.out.print(AppTexts.MinesSweeper.COL_OUT_OF_RANGE);
+                return null;
+            }
         }
+        return commands;
     }
 
     private void    setupBoard(int firstChoiceRow, int firstChoiceCol){
-        Random rand  = new Random();
-
-        List<Integer> cells = new ArrayList<>(state.width * state.height);
-        for (int i = 0; i < state.height; i++) {
-            for (int j = 0; j < state.width; j++) {
-                cells.add(i * state.width + j);  // Convert (i, j) to a single index
-            }
-        }
-        cells.remove(firstChoiceRow* state.width + firstChoiceCol);
+        LayoutGenerator.Result layout = LayoutGenerator.generate(state.width, state.height, state.mineCount,
+                firstChoiceRow, firstChoiceCol, state.seed, state.min3BV, state.max3BV);
+        state.threeBV            = layout.threeBV;
+        state.generationAttempts = layout.attempts;
+        state.samplesPerSecond   = layout.samplesPerSecond;
 
         // setting mines in to the board
-        for (int bombCount = 0; bombCount < state.mineCount;){
-            int index = rand.nextInt(cells.size());
-            int row = cells.get(index)/ state.width;
-            int col = cells.get(index)% state.width;
-            if (Math.abs(row - firstChoiceRow) > 1 || Math.abs(col - firstChoiceCol) > 1 || cells.size() < 9){
-                // setting the bomb
-                this.board[row][col].character = '*';
-                // removing the bomb from list
-                cells.remove(index);
-
-                // increasing none-bomb neighborhoods by 1
-                for (int i = Math.max(row-1,0); i <= Math.min(row+1, state.height-1); i++){
-                    for (int j = Math.max(col-1,0); j <= Math.min(col+1, state.width-1); j++){
-                        if (this.board[i][j].character == '\0'){
-                            this.board[i][j].character = '1';
-                        }else if (this.board[i][j].character != '*'){
-                            this.board[i][j].character++;
-                        }
+        for (int index = 0; index < layout.mines.length; index++){
+            if (!layout.mines[index]) continue;
+            int row = index / state.width;
+            int col = index % state.width;
+            this.board[row][col].character = '*';
+
+            // increasing none-bomb neighborhoods by 1
+            for (int i = Math.max(row-1,0); i <= Math.min(row+1, state.height-1); i++){
+                for (int j = Math.max(col-1,0); j <= Math.min(col+1, state.width-1); j++){
+                    if (this.board[i][j].character == '\0'){
+                        this.board[i][j].character = '1';
+                    }else if (this.board[i][j].character != '*'){
+                        this.board[i][j].character++;
                     }
                 }
-
-                bombCount++;
             }
         }
 
@@ -539,21 +1044,288 @@ public class MinesSweeper implements Game{
         }
     }
 
-    private boolean checkMine(int row, int col){
+    boolean         checkMine(int row, int col){
         return this.board[row][col].character == '*';
     }
 
 
+    // Read-only view used by simulations and analysis code
+    int             width(){
+        return state.width;
+    }
+
+    int             height(){
+        return state.height;
+    }
+
+    int             threeBV(){
+        return state.threeBV;
+    }
+
+    long            generationAttempts(){
+        return state.generationAttempts;
+    }
+
+    int             mineCount(){
+        return state.mineCount;
+    }
+
+    int             flagsCount(){
+        return state.flagsCount;
+    }
+
+    /**
+     * Returns the number of cells not revealed yet, flagged or not.
+     */
+    int             coveredCount(){
+        return state.unrevealedCount;
+    }
+
+    /**
+     * Returns the frontier: covered, unflagged cells ({@code row * width + col}) next to at least one revealed cell.
+     * It is kept up to date by {@link #openCell} and {@link #markFlag}, so analysis code never has to scan the board for it.
+     */
+    IntSetView      frontier(){
+        return frontier;
+    }
+
+    /**
+     * Returns the Zobrist hash of the visible board (revealed and flagged cells), see {@link Zobrist}.
+     */
+    long            zobristHash(){
+        return state.zobrist;
+    }
+
+    boolean         isRevealed(int row, int col){
+        return this.board[row][col].visited;
+    }
+
+    boolean         isFlagged(int row, int col){
+        return this.board[row][col].flag;
+    }
+
+    /**
+     * Returns the number shown on a revealed cell, or -1 if the cell is still covered.
+     */
+    int             revealedNumber(int row, int col){
+        Cell cell = this.board[row][col];
+        return (cell.visited && Character.isDigit(cell.character)) ? cell.character - '0' : -1;
+    }
+
+    boolean         isCleared(){
+        return state.isSetUp && state.unrevealedCount == state.mineCount;
+    }
+
+    int             firstRow(){
+        return state.firstRow;
+    }
+
+    int             firstCol(){
+        return state.firstCol;
+    }
+
+    /**
+     * Writes the revealed cells and then the flagged cells as two bit sets ({@code row * width + col},
+     * least significant bit first), {@link #keyframeBytes} bytes in total.
+     */
+    void            writeKeyframe(ByteBuffer out){
+        int cells = state.width * state.height;
+        for (int pass = 0; pass < 2; pass++){
+            int bits = 0;
+            for (int index = 0; index < cells; index++){
+                Cell cell = this.board[index / state.width][index % state.width];
+                if (pass == 0 ? cell.visited : cell.flag) bits |= 1 << (index & 7);
+                if ((index & 7) == 7 || index == cells - 1){
+                    out.put((byte) bits);
+                    bits = 0;
+                }
+            }
+        }
+    }
+
+    static int      keyframeBytes(int width, int height){
+        return 2 * ((width * height + 7) / 8);
+    }
+
+    /**
+     * Puts the board in the state written by {@link #writeKeyframe}, generating the layout from the first click if needed.
+     * Counters, frontier and Zobrist hash are rebuilt from the restored cells. Meant for headless games.
+     */
+    void            restoreKeyframe(int firstRow, int firstCol, ByteBuffer bits){
+        if (!state.isSetUp){
+            state.isSetUp = true;
+            state.firstRow = firstRow;
+            state.firstCol = firstCol;
+            setupBoard(firstRow, firstCol);
+        }
+
+        int cells = state.width * state.height;
+        int flagsOffset = (cells + 7) / 8;
+        for (int index = 0; index < cells; index++){
+            Cell cell = this.board[index / state.width][index % state.width];
+            cell.visited = (bits.get(bits.position() + (index >> 3)) & (1 << (index & 7))) != 0;
+            cell.flag    = (bits.get(bits.position() + flagsOffset + (index >> 3)) & (1 << (index & 7))) != 0;
+        }
+        rebuildDerivedState();
+    }
+
+    /**
+     * Recomputes the counters, Zobrist hash and frontier from the cells, after they were restored in bulk.
+     */
+    private void    rebuildDerivedState(){
+        int cells = state.width * state.height;
+        state.unrevealedCount = cells;
+        state.flagsCount = 0;
+        state.zobrist = 0;
+        for (int index = 0; index < cells; index++){
+            Cell cell = this.board[index / state.width][index % state.width];
+            if (cell.visited){
+                state.unrevealedCount--;
+                state.zobrist ^= Zobrist.key(index, cell.character == '*' ? Zobrist.MINE : cell.character - '0');
+            }
+            if (cell.flag){
+                state.flagsCount++;
+                state.zobrist ^= Zobrist.key(index, Zobrist.FLAG);
+            }
+        }
+
+        frontier.clear();
+        for (int index = 0; index < cells; index++){
+            int row = index / state.width, col = index % state.width;
+            if (!this.board[row][col].visited && !this.board[row][col].flag && hasRevealedNeighbour(row, col)) frontier.add(index);
+        }
+    }
+
+    /**
+     * Writes the state of the game for {@link GameSnapshot}, after its magic and version.
+     */
+    void            writeSnapshot(ByteBuffer out, long elapsedMillis){
+        ReplayFormat.putVarint(out, state.width);
+        ReplayFormat.putVarint(out, state.height);
+        ReplayFormat.putVarint(out, state.mineCount);
+        ReplayFormat.putVarint(out, state.level.ordinal());
+        ReplayFormat.putVarint(out, state.firstRow + 1);
+        ReplayFormat.putVarint(out, state.firstCol + 1);
+        ReplayFormat.putVarint(out, state.min3BV);
+        ReplayFormat.putVarint(out, state.max3BV);
+        ReplayFormat.putVarint(out, state.threeBV);
+        ReplayFormat.putVarint(out, state.generationAttempts);
+        ReplayFormat.putVarint(out, elapsedMillis);
+        out.putLong(state.seed);
+
+        int cells = state.width * state.height;
+        GameSnapshot.putRuns(out, cells, index -> this.board[index / state.width][index % state.width].character == '*');
+        GameSnapshot.putRuns(out, cells, index -> this.board[index / state.width][index % state.width].visited);
+        GameSnapshot.putRuns(out, cells, index -> this.board[index / state.width][index % state.width].flag);
+    }
+
+    /**
+     * Creates a game from a snapshot written by {@link #writeSnapshot}, decoding the planes directly into its cells.
+     */
+    static MinesSweeper readSnapshot(ByteBuffer in){
+        int width  = (int) ReplayFormat.getVarint(in);
+        int height = (int) ReplayFormat.getVarint(in);
+        int mines  = (int) ReplayFormat.getVarint(in);
+        // checked before the board is allocated, a corrupted size could ask for any amount of memory
+        if (width < 1 || width > Config.MineSweeper.MAX_COL || height < 1 || height > Config.MineSweeper.MAX_ROW
+                || mines < Config.MineSweeper.MIN_MINES || mines > Config.MineSweeper.MAX_MINES(height, width)){
+            throw new IllegalStateException("Corrupted snapshot size");
+        }
+        Level level = Level.values()[(int) ReplayFormat.getVarint(in)];
+        MinesSweeper game = new MinesSweeper(width, height, mines, level);
+        GameState state = game.state;
+        state.firstRow = (int) ReplayFormat.getVarint(in) - 1;
+        state.firstCol = (int) ReplayFormat.getVarint(in) - 1;
+        state.isSetUp  = state.firstRow >= 0;
+        state.min3BV   = (int) ReplayFormat.getVarint(in);
+        state.max3BV   = (int) ReplayFormat.getVarint(in);
+        state.threeBV  = (int) ReplayFormat.getVarint(in);
+        state.generationAttempts = ReplayFormat.getVarint(in);
+        game.resumedElapsedMillis = ReplayFormat.getVarint(in);
+        state.seed = in.getLong();
+
+        int cells = width * height;
+        Cell[][] board = game.board;
+        GameSnapshot.getRuns(in, cells, index -> board[index / width][index % width].character = '*');
+        GameSnapshot.getRuns(in, cells, index -> board[index / width][index % width].visited = true);
+        GameSnapshot.getRuns(in, cells, index -> board[index / width][index % width].flag = true);
+
+        if (state.isSetUp){
+            // neighbour counts are derived from the mines, exactly as in setupBoard
+            for (int row = 0; row < height; row++){
+                for (int col = 0; col < width; col++){
+                    if (board[row][col].character == '*') continue;
+                    char count = '0';
+                    for (int i = Math.max(row-1,0); i <= Math.min(row+1, height-1); i++){
+                        for (int j = Math.max(col-1,0); j <= Math.min(col+1, width-1); j++){
+                            if (board[i][j].character == '*') count++;
+                        }
+                    }
+                    board[row][col].character = count;
+                }
+            }
+        }
+        game.rebuildDerivedState();
+        return game;
+    }
+
+
 
 
     // GUI
+    /**
+     * Reveals the game title, column by column, from the clip compiled the first time.
+     */
+    private static void showTitle(int totalSleepTimeMillis){
+        AnimationClip.Key key = AnimationClip.Key.of("title " + totalSleepTimeMillis);
+        AnimationClipCache.shared().get(key, () -> Utils.slowPrintMultiLineClip(
+                AppTexts.MinesSweeper.GAME_TITLE,
+                AppTexts.MinesSweeper.GAME_TITLE_COLOR,
+                Config.MineSweeper.Coordinates.GAME_TITLE_ROW,
+                Config.MineSweeper.Coordinates.GAME_TITLE_COL,
+                totalSleepTimeMillis)).play();
+    }
+
+    /**
+     * Whether the help can be drawn over the game: each of its lines fits in a row of the terminal, and a row is left
+     * below them for the prompt to go back. Otherwise lines placed past the last row would all land on it.
+     */
+    private boolean helpFits(){
+        int lines = Utils.getLinesCount(AppTexts.MinesSweeper.HELPER);
+        if (lines >= mirror.rows()) return false;
+        // a line wider than the terminal wraps, and ends the help below its line count
+        VirtualScreen measure = new VirtualScreen(lines + 1, mirror.cols());
+        measure.printStream().print(AppTexts.MinesSweeper.HELPER);
+        return measure.cursorRow() <= lines;
+    }
+
+    /**
+     * Draws the help over the rows it needs, from the top of the screen, and the prompt to go back on the last row.
+     * The game screen stays in the mirror, {@link ScreenMirror#endOverlay()} puts those rows back. Only for a help
+     * that fits, see {@link #helpFits()}.
+     */
+    private void    showHelpOverlay(){
+        mirror.beginOverlay();
+        String[] lines = AppTexts.MinesSweeper.HELPER.split("\n", -1);
+        StringBuilder frame = new StringBuilder(AppTexts.MinesSweeper.HELPER.length() + 16 * lines.length);
+        for (int line = 0; line < lines.length; line++){
+            Utils.appendCursorTo(frame, line + 1, 1);
+            frame.append(lines[line]).append(AppTexts.Colors.RESET_COLOR).append(Utils.CLEAR_LINE_TO_END);
+        }
+        mirror.cover(1, lines.length);
+        int labelRow = Math.min(Config.MineSweeper.Coordinates.WAIT_FOR_ENTER_LABEL_ROW, mirror.rows());
+        Utils.appendCursorTo(frame, labelRow, 1);
+        frame.append(Utils.CLEAR_LINE_TO_END);
+        Utils.appendCursorTo(frame, labelRow, Config.MineSweeper.Coordinates.WAIT_FOR_ENTER_LABEL_COL);
+        mirror.cover(labelRow, labelRow);
+        FramePacer.write(output.optimize(frame));
+        Utils.slowPrint(AppTexts.MinesSweeper.WAIT_FOR_ENTER_LABEL, 500);
+    }
+
     private void    showGameLayout(int totalSleepTimeMillis){
         Utils.clearScreen(2);
 
-        Utils.slowPrintMultiLine(   AppTexts.MinesSweeper.GAME_TITLE, AppTexts.MinesSweeper.GAME_TITLE_COLOR,
-                Config.MineSweeper.Coordinates.GAME_TITLE_ROW,
-                Config.MineSweeper.Coordinates.GAME_TITLE_COL,
-                0  );
+        showTitle(0);
 
 
         if (totalSleepTimeMillis != 0){
@@ -567,6 +1339,7 @@ public class MinesSweeper implements Game{
 
         Utils.moveCursorTo(Config.MineSweeper.Coordinates.LEVEL_INFO_ROW,Config.MineSweeper.Coordinates.LEVEL_INFO_COL);
         System.out.printf(AppTexts.MinesSweeper.LEVEL_INFO_FORMAT_FORMAT, state.level);
+        if (state.isSetUp) renderGenerationReport();
 
         if (timer.isTimerOn()){
             timer.unpauseTimer();
@@ -582,14 +1355,27 @@ public class MinesSweeper implements Game{
         displayBorderNumbers();
         displayBorder(AppTexts.MinesSweeper.NORMAL_BORDER_COLOR, totalSleepTimeMillis/2);
         displayBoard(totalSleepTimeMillis/2);
+        if (cursorVisible) renderCell(cursorRow, cursorCol);
     }
 
     private void    displayBorder(String color, int totalSleepTimeMillis){
-        Utils.saveCursorPosition();
-        
+        AnimationClip.Key key = AnimationClip.Key.of("border " + totalSleepTimeMillis + " " + color, state.width, state.height);
+        AnimationClipCache.shared().get(key, () -> borderClip(color, totalSleepTimeMillis)).play();
+    }
+
+    /**
+     * Compiles the border drawing: the top and left sides grow from the top left corner, then the bottom and right
+     * sides from the two corners they start at.
+     */
+    private AnimationClip   borderClip(String color, int totalSleepTimeMillis){
+        int top    = Config.MineSweeper.Coordinates.border_topLeftCorner_row, bottom = top + state.height + 1;
+        int left   = Config.MineSweeper.Coordinates.box_topLeftCorner_col;
+        int right  = left + state.width*Config.MineSweeper.CELL_CHARACTER_SIZE + 1;
+        AnimationClip.Builder clip = new AnimationClip.Builder();
+        StringBuilder frame = new StringBuilder(Utils.SAVE_CURSOR);
 
-        Utils.moveCursorTo(Config.MineSweeper.Coordinates.border_topLeftCorner_row, Config.MineSweeper.Coordinates.box_topLeftCorner_col);
-        System.out.print(color + AppTexts.MinesSweeper.GRID_TOP_LEFT_CORNER);
+        Utils.appendCursorTo(frame, top, left);
+        frame.append(color).append(AppTexts.MinesSweeper.GRID_TOP_LEFT_CORNER);
 
         int max = Math.max(state.height, state.width);
         double heightStep = (double) state.height /max;
@@ -598,57 +1384,47 @@ public class MinesSweeper implements Game{
         int horizontalPrinted = 0;
         int verticalPrinted = 0;
         for (int i = 1; i <= max; i++){
-            Utils.moveCursorTo(Config.MineSweeper.Coordinates.border_topLeftCorner_row, Config.MineSweeper.Coordinates.box_topLeftCorner_col+1 + horizontalPrinted);
             while (horizontalPrinted < Math.round(i*widthStep) ){
                 horizontalPrinted++;
-                System.out.print(color + AppTexts.MinesSweeper.GRID_HORIZONTAL_LINE);
+                Utils.appendCursorTo(frame, top, left + horizontalPrinted);
+                frame.append(color).append(AppTexts.MinesSweeper.GRID_HORIZONTAL_LINE);
             }
-
-
-            Utils.moveCursorTo(Config.MineSweeper.Coordinates.border_topLeftCorner_row + verticalPrinted + 1, Config.MineSweeper.Coordinates.box_topLeftCorner_col);
             while (verticalPrinted < Math.round(i*heightStep) ){
                 verticalPrinted++;
-                System.out.print(color + AppTexts.MinesSweeper.GRID_VERTICAL_BORDER);
-                Utils.moveCursorDown(1);
-                Utils.moveCursorBack(1);
+                Utils.appendCursorTo(frame, top + verticalPrinted, left);
+                frame.append(color).append(AppTexts.MinesSweeper.GRID_VERTICAL_BORDER);
             }
-
-            Utils.sleep(totalSleepTimeMillis/max/2);
+            clip.frame(frame, totalSleepTimeMillis/max/2);
+            frame.setLength(0);
         }
 
-        Utils.moveCursorTo(Config.MineSweeper.Coordinates.border_topLeftCorner_row, Config.MineSweeper.Coordinates.box_topLeftCorner_col + horizontalPrinted + 1);
-        System.out.print(color + AppTexts.MinesSweeper.GRID_TOP_RIGHT_CORNER);
-
-        Utils.moveCursorTo(Config.MineSweeper.Coordinates.border_topLeftCorner_row + verticalPrinted + 1, Config.MineSweeper.Coordinates.box_topLeftCorner_col);
-        System.out.print(color + AppTexts.MinesSweeper.GRID_BOTTOM_LEFT_CORNER);
+        Utils.appendCursorTo(frame, top, left + horizontalPrinted + 1);
+        frame.append(color).append(AppTexts.MinesSweeper.GRID_TOP_RIGHT_CORNER);
+        Utils.appendCursorTo(frame, top + verticalPrinted + 1, left);
+        frame.append(color).append(AppTexts.MinesSweeper.GRID_BOTTOM_LEFT_CORNER);
 
         horizontalPrinted = 0;
         verticalPrinted = 0;
         for (int i = 1; i <= max; i++){
-            Utils.moveCursorTo(Config.MineSweeper.Coordinates.border_topLeftCorner_row + state.height + 1, Config.MineSweeper.Coordinates.box_topLeftCorner_col + horizontalPrinted + 1);
             while (horizontalPrinted < Math.round(i*widthStep) ){
                 horizontalPrinted++;
-                System.out.print(color + AppTexts.MinesSweeper.GRID_HORIZONTAL_LINE);
+                Utils.appendCursorTo(frame, bottom, left + horizontalPrinted);
+                frame.append(color).append(AppTexts.MinesSweeper.GRID_HORIZONTAL_LINE);
             }
-
-
-            Utils.moveCursorTo(Config.MineSweeper.Coordinates.border_topLeftCorner_row + verticalPrinted + 1, Config.MineSweeper.Coordinates.box_topLeftCorner_col + state.width*Config.MineSweeper.CELL_CHARACTER_SIZE + 1);
             while (verticalPrinted < Math.round(i*heightStep) ){
                 verticalPrinted++;
-                System.out.print(color + AppTexts.MinesSweeper.GRID_VERTICAL_BORDER);
-                Utils.moveCursorDown(1);
-                Utils.moveCursorBack(1);
+                Utils.appendCursorTo(frame, top + verticalPrinted, right);
+                frame.append(color).append(AppTexts.MinesSweeper.GRID_VERTICAL_BORDER);
             }
-
-            Utils.sleep(totalSleepTimeMillis/max/2);
+            clip.frame(frame, totalSleepTimeMillis/max/2);
+            frame.setLength(0);
         }
 
-        Utils.moveCursorTo(Config.MineSweeper.Coordinates.border_topLeftCorner_row + state.height + 1, Config.MineSweeper.Coordinates.box_topLeftCorner_col + state.width*Config.MineSweeper.CELL_CHARACTER_SIZE + 1);
-        System.out.print(color + AppTexts.MinesSweeper.GRID_BOTTOM_RIGHT_CORNER);
-
-
-        Utils.restoreCursor();
-        
+        Utils.appendCursorTo(frame, bottom, right);
+        frame.append(color).append(AppTexts.MinesSweeper.GRID_BOTTOM_RIGHT_CORNER);
+        frame.append(Utils.RESTORE_CURSOR);
+        clip.frame(frame, 0);
+        return clip.build();
     }
 
     private void    displayBorderNumbers() {
@@ -668,87 +1444,130 @@ public class MinesSweeper implements Game{
         
     }
 
-    private void    displayBoard(int totalSleepTimeMillis) {
+    void            displayBoard(int totalSleepTimeMillis) {
+        if (totalSleepTimeMillis == 0){
+            repaintBoard();
+            return;
+        }
         Utils.saveCursorPosition();
         
+        FramePacer pacer = new FramePacer();
+        StringBuilder updates = new StringBuilder();
         int sleepTime = totalSleepTimeMillis/(state.width* state.height);
+        long due = 0;
         for (int i = 0; i < state.width+ state.height-1; i++){
             int col = Math.min(i, state.width-1);
             for (int row = Math.max(0,i- state.width+1); row < state.height && col >=0; row++){
-                Utils.moveCursorTo(Config.MineSweeper.Coordinates.topLeftCell_row + row,Config.MineSweeper.Coordinates.topLeftCell_col + (Config.MineSweeper.CELL_CHARACTER_SIZE*col));
+                Utils.appendCursorTo(updates, Config.MineSweeper.Coordinates.topLeftCell_row + row,Config.MineSweeper.Coordinates.topLeftCell_col + (Config.MineSweeper.CELL_CHARACTER_SIZE*col));
                 if (this.board[row][col].visited){
-                    System.out.print(AppTexts.MinesSweeper.REVEALED_CELL_BG(row, col) + AppTexts.MinesSweeper.DIGIT_FORMAT(this.board[row][col].character));
+                    updates.append(AppTexts.MinesSweeper.REVEALED_CELL_BG(row, col)).append(AppTexts.MinesSweeper.DIGIT_FORMAT(this.board[row][col].character));
                 }
                 else if (this.board[row][col].flag){
-                    System.out.print(AppTexts.MinesSweeper.FLAG);
+                    updates.append(AppTexts.MinesSweeper.FLAG);
                 }
                 else{
-                    System.out.print(AppTexts.MinesSweeper.COVERED_CELL(row,col));
+                    updates.append(AppTexts.MinesSweeper.COVERED_CELL(row,col));
                 }
                 col--;
-                Utils.sleep(sleepTime);
+                due += sleepTime;
+                pacer.showUpdates(updates, due);
+                pacer.sleepUntil(due);
             }
         }
+        pacer.finish(updates);
         Utils.restoreCursor();
         
     }
 
+    /**
+     * Draws the whole board at once, row by row in a single frame, so the optimizer can drop the moves between cells.
+     */
+    private void    repaintBoard(){
+        StringBuilder frame = new StringBuilder(state.width * state.height * 48 + 16);
+        frame.append(Utils.SAVE_CURSOR);
+        for (int row = 0; row < state.height; row++){
+            for (int col = 0; col < state.width; col++){
+                Utils.appendCursorTo(frame, Config.MineSweeper.Coordinates.topLeftCell_row + row, Config.MineSweeper.Coordinates.topLeftCell_col + col*Config.MineSweeper.CELL_CHARACTER_SIZE);
+                frame.append(cellGlyph(row, col));
+            }
+        }
+        frame.append(Utils.RESTORE_CURSOR);
+        FramePacer.write(output.optimize(frame));
+    }
+
     private int[]   displayFinalBoard(int totalSleepTimeMillis){
         Utils.saveCursorPosition();
         
+        FramePacer pacer = new FramePacer();
+        StringBuilder updates = new StringBuilder();
         int bombX = 0, bombY = 0;
         int sleepTime = totalSleepTimeMillis/(state.width* state.height);
+        long due = 0;
         for (int i = 0; i < state.width+ state.height-1; i++){
             int col = Math.min(i, state.width-1);
             for (int row = Math.max(0,i- state.width+1); row < state.height && col >=0; row++){
-                Utils.moveCursorTo(Config.MineSweeper.Coordinates.topLeftCell_row + row,Config.MineSweeper.Coordinates.topLeftCell_col + (Config.MineSweeper.CELL_CHARACTER_SIZE*col));
+                Utils.appendCursorTo(updates, Config.MineSweeper.Coordinates.topLeftCell_row + row,Config.MineSweeper.Coordinates.topLeftCell_col + (Config.MineSweeper.CELL_CHARACTER_SIZE*col));
                 if (this.board[row][col].character == '*'){
                     if (this.board[row][col].flag){
-                        System.out.print(AppTexts.MinesSweeper.CORRECT_FLAG);
+                        updates.append(AppTexts.MinesSweeper.CORRECT_FLAG);
                     }
                     else if (this.board[row][col].visited){
-                        System.out.print(AppTexts.MinesSweeper.EXPLODED_BOMB);
+                        updates.append(AppTexts.MinesSweeper.EXPLODED_BOMB);
                         bombY = row;
                         bombX = Config.MineSweeper.CELL_CHARACTER_SIZE*col + (Config.MineSweeper.CELL_CHARACTER_SIZE-1)/2;
                     }
                     else {
-                        System.out.print(AppTexts.MinesSweeper.HIDDEN_BOMB);
+                        updates.append(AppTexts.MinesSweeper.HIDDEN_BOMB);
                     }
                 }
                 else if (this.board[row][col].flag) {
-                    System.out.printf(AppTexts.MinesSweeper.INCORRECT_FLAG);
+                    updates.append(AppTexts.MinesSweeper.INCORRECT_FLAG);
                 }
                 else if (this.board[row][col].visited){
-                    System.out.print(AppTexts.MinesSweeper.REVEALED_CELL_BG(row, col) + AppTexts.MinesSweeper.DIGIT_FORMAT(this.board[row][col].character));
+                    updates.append(AppTexts.MinesSweeper.REVEALED_CELL_BG(row, col)).append(AppTexts.MinesSweeper.DIGIT_FORMAT(this.board[row][col].character));
                     col--;
                     continue;
                 }
                 else{
-                    System.out.print(AppTexts.MinesSweeper.COVERED_CELL(row,col));
+                    updates.append(AppTexts.MinesSweeper.COVERED_CELL(row,col));
                     col--;
                     continue;
                 }
                 col--;
-                Utils.sleep(sleepTime);
+                due += sleepTime;
+                pacer.showUpdates(updates, due);
+                pacer.sleepUntil(due);
             }
         }
+        pacer.finish(updates);
         Utils.restoreCursor();
         
         return new int[]{bombX, bombY};
     }
 
-    private boolean openCell(int row, int col){
+    /**
+     * Lays the mines out around the first cell opened, without opening it.
+     */
+    void            layOut(int firstRow, int firstCol){
+        state.isSetUp = true;
+        state.firstRow = firstRow;
+        state.firstCol = firstCol;
+        long start = System.nanoTime();
+        setupBoard(firstRow, firstCol);
+        if (hud != null) hud.recordSetupBoard(System.nanoTime() - start);
+    }
+
+    boolean         openCell(int row, int col){
         if (this.board[row][col].flag){
             return true;
         }
         // set up the board IF it's not setup yet
         if (!state.isSetUp){
-            state.isSetUp = true;
-            // setup board
-            setupBoard(row, col);
+            layOut(row, col);
 
             // Start GUI on a separate thread
-            timer.startTimer();
+            if (!headless && !offscreen) timer.startTimer();
+            renderGenerationReport();
         }
 
 
@@ -757,12 +1576,12 @@ public class MinesSweeper implements Game{
             this.board[row][col].visited = true;
             state.unrevealedCount--;
             if (checkMine(row, col)){
+                state.zobrist ^= Zobrist.key(row * state.width + col, Zobrist.MINE);
                 return false;
             }
-            Utils.saveCursorPosition();
-            Utils.moveCursorTo(Config.MineSweeper.Coordinates.topLeftCell_row + row, Config.MineSweeper.Coordinates.topLeftCell_col + col*Config.MineSweeper.CELL_CHARACTER_SIZE);
-            System.out.print(AppTexts.MinesSweeper.REVEALED_CELL_BG(row,col) + AppTexts.MinesSweeper.DIGIT_FORMAT(this.board[row][col].character));
-            Utils.restoreCursor();
+            state.zobrist ^= Zobrist.key(row * state.width + col, this.board[row][col].character - '0');
+            updateFrontierOnReveal(row, col);
+            renderCell(row, col);
 
             // if the pixel is '0', so you have to make its neighborhoods to visited
             if (this.board[row][col].character == '0'){
@@ -806,74 +1625,172 @@ public class MinesSweeper implements Game{
         return true;
     }
 
-    private void    markFlag(int row, int col){
+    void            markFlag(int row, int col){
         if (!this.board[row][col].visited){
-            Utils.saveCursorPosition();
-            Utils.moveCursorTo(Config.MineSweeper.Coordinates.topLeftCell_row + row, Config.MineSweeper.Coordinates.topLeftCell_col + col*Config.MineSweeper.CELL_CHARACTER_SIZE);
-
             if (this.board[row][col].flag){
-                System.out.print(AppTexts.MinesSweeper.COVERED_CELL(row,col));
                 state.flagsCount--;
             }else{
-                System.out.print(AppTexts.MinesSweeper.FLAG);
                 state.flagsCount++;
             }
+            this.board[row][col].flag = !this.board[row][col].flag;
+            state.zobrist ^= Zobrist.key(row * state.width + col, Zobrist.FLAG);
+            if (this.board[row][col].flag) frontier.remove(row * state.width + col);
+            else if (hasRevealedNeighbour(row, col)) frontier.add(row * state.width + col);
 
-            Utils.moveCursorTo(Config.MineSweeper.Coordinates.minesInfoRow, Config.MineSweeper.Coordinates.minesInfoCol);
-            Utils.clearLine(0);
-            System.out.printf(AppTexts.MinesSweeper.MINES_LEFT_FORMAT, state.mineCount - state.flagsCount);
+            renderCell(row, col);
+            renderMinesLeft();
+        }
+    }
 
-            this.board[row][col].flag = !this.board[row][col].flag;
+    private void    updateFrontierOnReveal(int row, int col){
+        frontier.remove(row * state.width + col);
+        for (int i = Math.max(row-1,0); i <= Math.min(row+1, state.height-1); i++){
+            for (int j = Math.max(col-1,0); j <= Math.min(col+1, state.width-1); j++){
+                if (!this.board[i][j].visited && !this.board[i][j].flag) frontier.add(i * state.width + j);
+            }
+        }
+    }
 
-            Utils.restoreCursor();
+    private boolean hasRevealedNeighbour(int row, int col){
+        for (int i = Math.max(row-1,0); i <= Math.min(row+1, state.height-1); i++){
+            for (int j = Math.max(col-1,0); j <= Math.min(col+1, state.width-1); j++){
+                if (this.board[i][j].visited) return true;
+            }
         }
+        return false;
     }
 
-    private void    winAnimation(){
+    /**
+     * Draws the current state of a single cell (revealed, flagged or covered) at its board position.
+     * Does nothing for headless games, and only marks the cell as dirty while a batch is open.
+     */
+    private void    renderCell(int row, int col){
+        if (headless) return;
+        if (batch != null){
+            batch.add(row * state.width + col);
+            return;
+        }
         Utils.saveCursorPosition();
-        
+        Utils.moveCursorTo(Config.MineSweeper.Coordinates.topLeftCell_row + row, Config.MineSweeper.Coordinates.topLeftCell_col + col*Config.MineSweeper.CELL_CHARACTER_SIZE);
+        System.out.print(cellGlyph(row, col));
+        Utils.restoreCursor();
+    }
 
-        displayBorder(AppTexts.MinesSweeper.WIN_BORDER_COLOR, 2000);
+    String          cellGlyph(int row, int col){
+        if (cursorVisible && row == cursorRow && col == cursorCol){
+            Cell cell = this.board[row][col];
+            char shown = cell.visited ? (cell.character == '0' ? ' ' : cell.character) : cell.flag ? 'F' : '-';
+            return AppTexts.MinesSweeper.CURSOR_CELL(shown);
+        }
+        if (this.board[row][col].visited){
+            return AppTexts.MinesSweeper.REVEALED_CELL_BG(row,col) + AppTexts.MinesSweeper.DIGIT_FORMAT(this.board[row][col].character);
+        }
+        else if (this.board[row][col].flag){
+            return AppTexts.MinesSweeper.FLAG;
+        }
+        else{
+            return AppTexts.MinesSweeper.COVERED_CELL(row,col);
+        }
+    }
 
+    private void    renderMinesLeft(){
+        if (headless) return;
+        if (batch != null){
+            batchMinesLeft = true;
+            return;
+        }
+        Utils.saveCursorPosition();
+        Utils.moveCursorTo(Config.MineSweeper.Coordinates.minesInfoRow, Config.MineSweeper.Coordinates.minesInfoCol);
+        Utils.clearLine(0);
+        System.out.printf(AppTexts.MinesSweeper.MINES_LEFT_FORMAT, state.mineCount - state.flagsCount);
+        Utils.restoreCursor();
+    }
+
+    /**
+     * Shows the 3BV of a difficulty-targeted board and how many layouts were sampled to find it.
+     */
+    private void    renderGenerationReport(){
+        if (headless || (state.min3BV == 0 && state.max3BV == Integer.MAX_VALUE)) return;
+        Utils.saveCursorPosition();
+        Utils.moveCursorTo(Config.MineSweeper.Coordinates.GENERATION_INFO_ROW, Config.MineSweeper.Coordinates.GENERATION_INFO_COL);
+        System.out.printf(AppTexts.MinesSweeper.GENERATION_INFO_FORMAT, state.threeBV, state.generationAttempts, state.samplesPerSecond);
+        Utils.restoreCursor();
+    }
 
+    /**
+     * Starts collecting cell repaints instead of drawing them, see {@link #endBatch()}. Batches can be nested.
+     */
+    private void    beginBatch(){
+        if (batchDepth++ > 0) return;   // nested in an open batch, drawn when the outer one ends
+        if (batchCells == null) batchCells = new IndexedIntSet(state.width * state.height);
+        batchCells.clear();
+        batch = batchCells;
+        batchMinesLeft = false;
+    }
 
-        for (int i = 0; i < 20; i++){
-            int last = i;
-            Utils.moveCursorTo(Config.MineSweeper.Coordinates.border_topLeftCorner_row, Config.MineSweeper.Coordinates.box_topLeftCorner_col);
-            System.out.print((((last++)%3==0)?AppTexts.MinesSweeper.WIN_BORDER_COLOR :AppTexts.MinesSweeper.NORMAL_BORDER_COLOR) + AppTexts.MinesSweeper.GRID_TOP_LEFT_CORNER);
-            for (int j = 0; j < state.width*Config.MineSweeper.CELL_CHARACTER_SIZE; j++){
-                System.out.print(((((last++)%3==0)?AppTexts.MinesSweeper.WIN_BORDER_COLOR :AppTexts.MinesSweeper.NORMAL_BORDER_COLOR)+AppTexts.MinesSweeper.GRID_HORIZONTAL_LINE));
-            }
-            System.out.print((((last++)%3==0)?AppTexts.MinesSweeper.WIN_BORDER_COLOR :AppTexts.MinesSweeper.NORMAL_BORDER_COLOR)+AppTexts.MinesSweeper.GRID_TOP_RIGHT_CORNER);
+    /**
+     * Draws every cell changed since {@link #beginBatch()} (and the mines counter if needed) in a single write.
+     */
+    private void    endBatch(){
+        if (--batchDepth > 0) return;
+        IndexedIntSet dirty = batch;
+        batch = null;
+        if (headless || (dirty.size() == 0 && !batchMinesLeft)) return;
+
+        StringBuilder frame = new StringBuilder(dirty.size() * 64 + 64);
+        frame.append(Utils.SAVE_CURSOR);
+        for (int i = 0; i < dirty.size(); i++){
+            int row = dirty.get(i) / state.width, col = dirty.get(i) % state.width;
+            Utils.appendCursorTo(frame, Config.MineSweeper.Coordinates.topLeftCell_row + row, Config.MineSweeper.Coordinates.topLeftCell_col + col*Config.MineSweeper.CELL_CHARACTER_SIZE);
+            frame.append(cellGlyph(row, col));
+        }
+        if (batchMinesLeft){
+            Utils.appendCursorTo(frame, Config.MineSweeper.Coordinates.minesInfoRow, Config.MineSweeper.Coordinates.minesInfoCol);
+            frame.append(Utils.CLEAR_LINE_TO_END).append(String.format(AppTexts.MinesSweeper.MINES_LEFT_FORMAT, state.mineCount - state.flagsCount));
+        }
+        frame.append(Utils.RESTORE_CURSOR);
+        FramePacer.write(output.optimize(frame));
+    }
 
-            for (int j = 0; j < state.height; j++){
-                Utils.moveCursorDown(1);
-                Utils.moveCursorBack(1);
-                System.out.print((((last++)%3==0)?AppTexts.MinesSweeper.WIN_BORDER_COLOR :AppTexts.MinesSweeper.NORMAL_BORDER_COLOR)+AppTexts.MinesSweeper.GRID_VERTICAL_BORDER);
+    /**
+     * Opens every cell proven safe and flags every cell proven to be a mine, over and over until the solver finds
+     * nothing certain. All the changes are drawn in one frame at the end.
+     *
+     * @return false if a mine was opened (only possible when the player placed a wrong flag)
+     */
+    boolean         autoResolve(){
+        if (!state.isSetUp) return true;
+        if (solver == null) solver = new MinesSolver();
+
+        beginBatch();
+        boolean alive = true;
+        while (alive && state.unrevealedCount != state.mineCount){
+            MinesSolver.Analysis analysis = solver.analyze(this);
+            int[] safe  = analysis.getSafeCells();
+            int[] mines = analysis.getMineCells();
+            if (safe.length == 0 && mines.length == 0) break;
+
+            for (int cell : mines){
+                if (!this.board[cell / state.width][cell % state.width].flag) markFlag(cell / state.width, cell % state.width);
+            }
+            for (int cell : safe){
+                int row = cell / state.width, col = cell % state.width;
+                if (!this.board[row][col].visited && !openCell(row, col)) alive = false;
             }
+        }
+        endBatch();
+        return alive;
+    }
 
-            Utils.moveCursorDown(1);
-            Utils.moveCursorBack(1);
-            System.out.print((((last++)%3==0)?AppTexts.MinesSweeper.WIN_BORDER_COLOR :AppTexts.MinesSweeper.NORMAL_BORDER_COLOR)+AppTexts.MinesSweeper.GRID_BOTTOM_RIGHT_CORNER);
-            Utils.moveCursorBack(1);
+    private void    winAnimation(){
+        Utils.saveCursorPosition();
+        
 
-            for (int j = 0; j < Config.MineSweeper.CELL_CHARACTER_SIZE* state.width; j++){
-                Utils.moveCursorBack(1);
-                System.out.print(((((last++)%3==0)?AppTexts.MinesSweeper.WIN_BORDER_COLOR :AppTexts.MinesSweeper.NORMAL_BORDER_COLOR)+AppTexts.MinesSweeper.GRID_HORIZONTAL_LINE));
-                Utils.moveCursorBack(1);
-            }
-            Utils.moveCursorBack(1);
-            System.out.print((((last++)%3==0)?AppTexts.MinesSweeper.WIN_BORDER_COLOR :AppTexts.MinesSweeper.NORMAL_BORDER_COLOR)+AppTexts.MinesSweeper.GRID_BOTTOM_LEFT_CORNER);
-            Utils.moveCursorBack(1);
+        displayBorder(AppTexts.MinesSweeper.WIN_BORDER_COLOR, 2000);
 
-            for (int j = 0; j < state.height; j++){
-                Utils.moveCursorUp(1);
-                System.out.print((((last++)%3==0)?AppTexts.MinesSweeper.WIN_BORDER_COLOR :AppTexts.MinesSweeper.NORMAL_BORDER_COLOR)+AppTexts.MinesSweeper.GRID_VERTICAL_BORDER);
-                Utils.moveCursorBack(1);
-            }
 
-            Utils.sleep(300);
-        }
+
+        AnimationClipCache.shared().get(AnimationClip.Key.of("win", state.width, state.height), this::winAnimationClip).play();
 
         Utils.restoreCursor();
         
@@ -881,6 +1798,51 @@ public class MinesSweeper implements Game{
         displayBorder(AppTexts.MinesSweeper.WIN_BORDER_COLOR, 0);
     }
 
+    /**
+     * Compiles the win animation: every third piece of the border lit, going round for 20 frames. A frame only draws
+     * the pieces that change since the one before.
+     */
+    private AnimationClip   winAnimationClip(){
+        int top    = Config.MineSweeper.Coordinates.border_topLeftCorner_row, bottom = top + state.height + 1;
+        int left   = Config.MineSweeper.Coordinates.box_topLeftCorner_col;
+        int width  = state.width*Config.MineSweeper.CELL_CHARACTER_SIZE, right = left + width + 1;
+
+        // the pieces of the border clockwise from the top left corner
+        int pieces = 2*width + 2*state.height + 4, count = 0;
+        int[] rows = new int[pieces], cols = new int[pieces];
+        String[] glyphs = new String[pieces];
+        rows[count] = top; cols[count] = left; glyphs[count++] = AppTexts.MinesSweeper.GRID_TOP_LEFT_CORNER;
+        for (int j = 1; j <= width; j++){
+            rows[count] = top; cols[count] = left + j; glyphs[count++] = AppTexts.MinesSweeper.GRID_HORIZONTAL_LINE;
+        }
+        rows[count] = top; cols[count] = right; glyphs[count++] = AppTexts.MinesSweeper.GRID_TOP_RIGHT_CORNER;
+        for (int j = 1; j <= state.height; j++){
+            rows[count] = top + j; cols[count] = right; glyphs[count++] = AppTexts.MinesSweeper.GRID_VERTICAL_BORDER;
+        }
+        rows[count] = bottom; cols[count] = right; glyphs[count++] = AppTexts.MinesSweeper.GRID_BOTTOM_RIGHT_CORNER;
+        for (int j = 1; j <= width; j++){
+            rows[count] = bottom; cols[count] = right - j; glyphs[count++] = AppTexts.MinesSweeper.GRID_HORIZONTAL_LINE;
+        }
+        rows[count] = bottom; cols[count] = left; glyphs[count++] = AppTexts.MinesSweeper.GRID_BOTTOM_LEFT_CORNER;
+        for (int j = state.height; j >= 1; j--){
+            rows[count] = top + j; cols[count] = left; glyphs[count++] = AppTexts.MinesSweeper.GRID_VERTICAL_BORDER;
+        }
+
+        AnimationClip.Builder clip = new AnimationClip.Builder();
+        StringBuilder frame = new StringBuilder(32 * pieces);
+        for (int phase = 0; phase < 20; phase++){
+            frame.setLength(0);
+            for (int piece = 0; piece < pieces; piece++){
+                boolean lit = (phase + piece)%3 == 0;
+                if (phase > 0 && lit == ((phase - 1 + piece)%3 == 0)) continue;
+                Utils.appendCursorTo(frame, rows[piece], cols[piece]);
+                frame.append(lit ? AppTexts.MinesSweeper.WIN_BORDER_COLOR : AppTexts.MinesSweeper.NORMAL_BORDER_COLOR).append(glyphs[piece]);
+            }
+            clip.frame(frame, 300);
+        }
+        return clip.build();
+    }
+
     private void    looseAnimation(int[] bombCoordinates){
         displayBorder(AppTexts.MinesSweeper.LOOSE_BORDER_COLOR, 1500);
         
@@ -0,0 +1,63 @@
+import java.util.Random;
+
+/**
+ * Automatic player used by headless simulations.
+ * It applies every move {@link MinesSolver} proves certain and, when none is left, opens the cell least likely to hide a mine.
+ */
+public class MinesSweeperBot {
+    private final Random      rand;
+    private final MinesSolver solver = new MinesSolver();
+    private       int         moves;
+    private       int         guesses;
+
+    public MinesSweeperBot(long seed) {
+        this.rand = new Random(seed);
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getGuesses() {
+        return guesses;
+    }
+
+    /**
+     * Plays the given game until it is won or lost.
+     *
+     * @param game a fresh game (usually headless)
+     * @return true if the board was cleared, false if a mine was opened
+     */
+    public boolean play(MinesSweeper game) {
+        moves++;
+        if (!game.openCell(game.height() / 2, game.width() / 2)) return false;
+
+        while (!game.isCleared()) {
+            MinesSolver.Analysis analysis = solver.analyze(game);
+            int[] safe  = analysis.getSafeCells();
+            int[] mines = analysis.getMineCells();
+
+            if (safe.length == 0 && mines.length == 0) {
+                // nothing is certain, open the least dangerous cell
+                int cell = analysis.bestGuess(rand);
+                guesses++;
+                moves++;
+                if (!game.openCell(cell / game.width(), cell % game.width())) return false;
+                continue;
+            }
+
+            for (int cell : mines) {
+                moves++;
+                game.markFlag(cell / game.width(), cell % game.width());
+            }
+            for (int cell : safe) {
+                int row = cell / game.width(), col = cell % game.width();
+                // an earlier opening may already have cascaded over this cell
+                if (game.isRevealed(row, col)) continue;
+                moves++;
+                if (!game.openCell(row, col)) return false;
+            }
+        }
+        return true;
+    }
+}
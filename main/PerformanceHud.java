@@ -0,0 +1,133 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Live figures of how the game runs, drawn over the top right corner of the game screen while the player wants them
+ * ('p'), to tell why a session is slow without attaching a profiler:
+ * <ul>
+ *     <li>the time from a key press (or a line) to the frame answering it written, median and 99th percentile;</li>
+ *     <li>the bytes and escape sequences the game wrote per move;</li>
+ *     <li>the time spent in {@code openCell} and {@code setupBoard};</li>
+ *     <li>the frame rate of the last animation and the frames it dropped, see {@link FramePacer};</li>
+ *     <li>the output waiting for the terminal, see {@link AsyncTerminalWriter};</li>
+ *     <li>the allocation rate of all threads and the live thread count, from the {@link ThreadMXBean}.</li>
+ * </ul>
+ * Per-move figures are kept in {@link RollingWindow}s of the last {@link Config.Display#HUD_WINDOW} moves, so the HUD
+ * takes the same memory however long the game lasts. It is drawn with {@link ScreenMirror#drawOver}, and taken away
+ * by drawing the game back from the mirror's copy.
+ */
+public class PerformanceHud {
+    private final RollingWindow latency    = new RollingWindow(Config.Display.HUD_WINDOW);   // nanoseconds
+    private final RollingWindow bytes      = new RollingWindow(Config.Display.HUD_WINDOW);
+    private final RollingWindow escapes    = new RollingWindow(Config.Display.HUD_WINDOW);
+    private final RollingWindow openCell   = new RollingWindow(Config.Display.HUD_WINDOW);   // nanoseconds
+    private final RollingWindow setupBoard = new RollingWindow(Config.Display.HUD_WINDOW);   // nanoseconds
+    private final ThreadMXBean  threads    = ManagementFactory.getThreadMXBean();
+    private long                allocatedBytes = -1, allocatedNanos;
+    private double              allocationRate = Double.NaN;   // bytes per second, NaN if the JVM does not tell
+    private boolean             visible;
+    private int                 top, left, bottom, right;      // where it was drawn last, top is 0 if nowhere
+
+    /**
+     * Adds a move: the frame answering the input that arrived at {@code inputNanos} ({@link System#nanoTime()}) has
+     * just been written, in {@code bytes} bytes holding {@code escapes} escape sequences.
+     */
+    public void recordMove(long inputNanos, long bytes, long escapes) {
+        latency.record(System.nanoTime() - inputNanos);
+        this.bytes.record(bytes);
+        this.escapes.record(escapes);
+    }
+
+    public void recordOpenCell(long nanos) {
+        openCell.record(nanos);
+    }
+
+    public void recordSetupBoard(long nanos) {
+        setupBoard.record(nanos);
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Shows the HUD if it is hidden, hides it otherwise.
+     */
+    public void toggle(ScreenMirror mirror) {
+        visible = !visible;
+        if (visible) draw(mirror);
+        else erase(mirror);
+    }
+
+    /**
+     * Draws the HUD with the latest figures at the top right corner of the terminal, if it is shown.
+     */
+    public void refresh(ScreenMirror mirror) {
+        if (visible) draw(mirror);
+    }
+
+    private void draw(ScreenMirror mirror) {
+        String[] lines = lines();
+        int width = Math.min(lines[0].length(), mirror.cols());
+        int newLeft = mirror.cols() - width + 1, newBottom = Math.min(lines.length, mirror.rows());
+        // the terminal was resized, the HUD moves with its right edge
+        if (top != 0 && (newLeft != left || newBottom != bottom)) erase(mirror);
+
+        StringBuilder frame = new StringBuilder(lines.length * (width + 32));
+        for (int line = 0; line < newBottom; line++) {
+            Utils.appendCursorTo(frame, line + 1, newLeft);
+            frame.append(AppTexts.MinesSweeper.HUD_COLOR).append(lines[line], 0, width).append(AppTexts.Colors.RESET_COLOR);
+        }
+        mirror.drawOver(frame);
+        top = 1;
+        left = newLeft;
+        bottom = newBottom;
+        right = mirror.cols();
+    }
+
+    private void erase(ScreenMirror mirror) {
+        if (top == 0) return;
+        mirror.restore(top, left, bottom, right);
+        top = 0;
+    }
+
+    /**
+     * The lines of the HUD, padded to the same width.
+     */
+    String[] lines() {
+        AsyncTerminalWriter output = AsyncTerminalWriter.installed();
+        String[] lines = String.format(AppTexts.MinesSweeper.HUD_FORMAT,
+                latency.size(),
+                latency.percentile(50) / 1e6, latency.percentile(99) / 1e6,
+                Math.round(bytes.mean()), Math.round(escapes.mean()),
+                openCell.percentile(50) / 1e6, openCell.max() / 1e6,
+                setupBoard.last() / 1e6,
+                FramePacer.animationFps(), FramePacer.animationDropped(),
+                output == null ? 0 : output.queuedBytes(), output == null ? 0 : output.blocked(),
+                sampleAllocationRate() / (1 << 20),
+                threads.getThreadCount()).split("\n");
+        int width = 0;
+        for (String line : lines) width = Math.max(width, line.length());
+        for (int i = 0; i < lines.length; i++) lines[i] = lines[i] + " ".repeat(width - lines[i].length());
+        return lines;
+    }
+
+    /**
+     * Bytes allocated per second by all threads since the last sample, kept for a second at least so that a refresh
+     * right after another does not show the noise of a few milliseconds.
+     */
+    private double sampleAllocationRate() {
+        if (!(threads instanceof com.sun.management.ThreadMXBean allocations)) return allocationRate;
+        long now = System.nanoTime(), allocated = allocations.getTotalThreadAllocatedBytes();
+        if (allocated < 0) return allocationRate;
+        if (allocatedBytes < 0) {
+            allocatedBytes = allocated;
+            allocatedNanos = now;
+        } else if (now - allocatedNanos >= 1_000_000_000L) {
+            allocationRate = (allocated - allocatedBytes) * 1e9 / (now - allocatedNanos);
+            allocatedBytes = allocated;
+            allocatedNanos = now;
+        }
+        return allocationRate;
+    }
+}
@@ -55,7 +55,6 @@ public class Player {
      * @return true if input is "q" or a number between 1 and max, false otherwise
      */
     private static boolean isValidInput(String input, int max) {
-        return input.trim().equalsIgnoreCase("q") ||
-                (input.trim().matches("^(?i)(\\d+)$") && Utils.isInRange(input.trim(), 1, max));
+        return input.trim().equalsIgnoreCase("q") || Utils.isInRange(input.trim(), 1, max);
     }
 }
@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Durable MinesSweeper statistics: a memory-mapped file with a small header of per-level aggregates
+ * followed by an append-only log of fixed-width game records.
+ * <pre>
+ * header : magic (int) | version (int) | record count (long) | per level: games, wins, losses, quits,
+ *          time played in ms, best winning time in ms (longs)            padded to {@link #HEADER_SIZE} bytes
+ * record : end time, epoch millis (long) | game time in ms (int) | level (byte) | outcome (byte)
+ *          | width | height | mines (shorts) | 3BV (int)                  {@link #RECORD_SIZE} bytes
+ * </pre>
+ * Opening the store reads the header only, whatever the number of games. A record is written before the header
+ * that counts it, so a crash can lose at most the last game. When the log grows past
+ * {@link Config.MineSweeper#STATS_COMPACT_AT} records it is rewritten with only the most recent
+ * {@link Config.MineSweeper#STATS_HISTORY} ones; the aggregates keep covering every game ever played.
+ * If the file cannot be used, the store keeps working in memory for the current session.
+ */
+public class PlayerStatsStore {
+    public static final int HEADER_SIZE = 256;
+    public static final int RECORD_SIZE = 24;
+
+    private static final int MAGIC   = 0x4D535354;   // "MSST"
+    private static final int VERSION = 1;
+    private static final int COUNT_OFFSET      = 8;
+    private static final int AGGREGATES_OFFSET = 16;
+
+    // aggregate fields, per level
+    public static final int GAMES = 0, WINS = 1, LOSSES = 2, QUITS = 3, TIME_MILLIS = 4, BEST_WIN_MILLIS = 5;
+    private static final int FIELDS = 6;
+
+    public static final byte WIN = 'W', LOST = 'L', QUIT = 'Q';
+
+    /**
+     * One game of the log, filled by {@link #readRecord}.
+     */
+    public static class Record {
+        long endedAt;
+        int  timeMillis;
+        int  level;       // ordinal of MinesSweeper.Level
+        byte outcome;
+        int  width, height, mines;
+        int  threeBV;
+    }
+
+    private final Path             path;
+    private final long[][]         aggregates = new long[MinesSweeper.Level.values().length][FIELDS];
+    private       FileChannel      channel;
+    private       MappedByteBuffer map;
+    private       long             count;
+
+    private PlayerStatsStore(Path path) {
+        this.path = path;
+        for (long[] level : aggregates) level[BEST_WIN_MILLIS] = Long.MAX_VALUE;
+    }
+
+    /**
+     * Opens (or creates) the store at the given path.
+     */
+    public static PlayerStatsStore open(Path path) {
+        PlayerStatsStore store = new PlayerStatsStore(path);
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            store.map(Math.max(Files.exists(path) ? Files.size(path) : 0, HEADER_SIZE + 1024L * RECORD_SIZE));
+            store.readHeader();
+        } catch (IOException | IllegalStateException _) {
+            store.close();
+        }
+        return store;
+    }
+
+    private void map(long size) throws IOException {
+        if (channel == null) channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void readHeader() {
+        if (map.getInt(0) == 0 && map.getLong(COUNT_OFFSET) == 0) {
+            // new file
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            writeHeader();
+            return;
+        }
+        if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) throw new IllegalStateException("Not a statistics file: " + path);
+        count = map.getLong(COUNT_OFFSET);
+        for (int level = 0; level < aggregates.length; level++) {
+            for (int field = 0; field < FIELDS; field++) {
+                aggregates[level][field] = map.getLong(AGGREGATES_OFFSET + (level * FIELDS + field) * Long.BYTES);
+            }
+        }
+    }
+
+    private void writeHeader() {
+        for (int level = 0; level < aggregates.length; level++) {
+            for (int field = 0; field < FIELDS; field++) {
+                map.putLong(AGGREGATES_OFFSET + (level * FIELDS + field) * Long.BYTES, aggregates[level][field]);
+            }
+        }
+        map.putLong(COUNT_OFFSET, count);
+    }
+
+    /**
+     * Adds one finished game to the aggregates and to the log.
+     */
+    public void add(MinesSweeper.Level level, GameResult result, int width, int height, int mines, int threeBV) {
+        byte outcome = result.isWin() ? WIN : result.isLost() ? LOST : QUIT;
+        long timeMillis = (long) result.getTimeSpent();
+
+        long[] stats = aggregates[level.ordinal()];
+        stats[GAMES]++;
+        stats[TIME_MILLIS] += timeMillis;
+        switch (outcome) {
+            case WIN -> {
+                stats[WINS]++;
+                stats[BEST_WIN_MILLIS] = Math.min(stats[BEST_WIN_MILLIS], timeMillis);
+            }
+            case LOST -> stats[LOSSES]++;
+            default   -> stats[QUITS]++;
+        }
+        if (map == null) return;
+
+        try {
+            if (count >= Config.MineSweeper.STATS_COMPACT_AT) compact();
+            long offset = HEADER_SIZE + count * RECORD_SIZE;
+            if (offset + RECORD_SIZE > map.capacity()) map(map.capacity() * 2L);
+
+            ByteBuffer record = map.slice((int) offset, RECORD_SIZE);
+            record.putLong(System.currentTimeMillis());
+            record.putInt((int) timeMillis);
+            record.put((byte) level.ordinal());
+            record.put(outcome);
+            record.putShort((short) width);
+            record.putShort((short) height);
+            record.putShort((short) mines);
+            record.putInt(threeBV);
+            // the record reaches the disk before the header that counts it, which is only changed afterwards
+            map.force((int) offset, RECORD_SIZE);
+
+            count++;
+            writeHeader();
+            map.force(0, HEADER_SIZE);
+        } catch (IOException _) {
+            close();
+        }
+    }
+
+    /**
+     * Rewrites the file with the header and the most recent {@link Config.MineSweeper#STATS_HISTORY} records.
+     * The new file is written beside the old one and moved over it, so a crash leaves one of the two intact.
+     */
+    private void compact() throws IOException {
+        long keep = Math.min(count, Config.MineSweeper.STATS_HISTORY);
+        ByteBuffer compacted = ByteBuffer.allocate((int) (HEADER_SIZE + keep * RECORD_SIZE));
+        compacted.put(map.slice(0, HEADER_SIZE));
+        compacted.put(map.slice((int) (HEADER_SIZE + (count - keep) * RECORD_SIZE), (int) (keep * RECORD_SIZE)));
+        compacted.putLong(COUNT_OFFSET, keep);
+        compacted.flip();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (compacted.hasRemaining()) out.write(compacted);
+            out.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel.close();
+        channel = null;
+        count = keep;
+        map(HEADER_SIZE + Math.max(keep * 2, 1024L) * RECORD_SIZE);
+    }
+
+    /**
+     * Returns an aggregate (e.g. {@link #WINS}) of one level, over every game recorded so far.
+     * {@link #BEST_WIN_MILLIS} is {@code Long.MAX_VALUE} while the level has no win.
+     */
+    public long get(MinesSweeper.Level level, int field) {
+        return aggregates[level.ordinal()][field];
+    }
+
+    /**
+     * Returns an aggregate summed over all levels ({@link #BEST_WIN_MILLIS} is not summable).
+     */
+    public long total(int field) {
+        long total = 0;
+        for (long[] level : aggregates) total += level[field];
+        return total;
+    }
+
+    /**
+     * Returns the number of records kept in the log, at most {@link Config.MineSweeper#STATS_COMPACT_AT}.
+     */
+    public long recordCount() {
+        return count;
+    }
+
+    /**
+     * Reads record {@code index} (0 is the oldest one kept) into {@code into}.
+     */
+    public void readRecord(long index, Record into) {
+        if (map == null || index < 0 || index >= count) throw new IndexOutOfBoundsException("No record " + index);
+        ByteBuffer record = map.slice((int) (HEADER_SIZE + index * RECORD_SIZE), RECORD_SIZE);
+        into.endedAt    = record.getLong();
+        into.timeMillis = record.getInt();
+        into.level      = record.get();
+        into.outcome    = record.get();
+        into.width      = record.getShort();
+        into.height     = record.getShort();
+        into.mines      = record.getShort();
+        into.threeBV    = record.getInt();
+    }
+
+    /**
+     * Closes the file; the store keeps counting in memory.
+     */
+    public void close() {
+        map = null;
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException _) {
+            // nothing left to release
+        }
+        channel = null;
+    }
+}
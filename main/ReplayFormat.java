@@ -0,0 +1,58 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of game recordings (".msr" files), shared by {@link ReplayRecorder} and {@link ReplayReader}.
+ * <pre>
+ * header : magic (int) | version (byte) | width | height | mines | min 3BV | max 3BV   (varints)
+ *          | seed (long) | start time, epoch millis (varint)
+ * move     : mode ('v', 'f' or 'a') | row | col | milliseconds since the previous move  (varints, no row/col for 'a')
+ * keyframe : 'K' | moves played so far | first click row | first click col (varints)
+ *            | revealed cells | flagged cells   (bit sets, one bit per cell, row-major, LSB first)
+ * end      : 'E' | outcome ('W', 'L' or 'Q') | covered cells | flags (varints) | Zobrist hash of the board (long)
+ * index    : per keyframe, move number and file offset, both as deltas to the previous entry (varints)
+ * footer   : offset of the index (long) | keyframe count (int) | index magic (int)
+ * </pre>
+ * A move takes 4 bytes on boards up to 127x127 when the player answers within 16 seconds.
+ * A keyframe is written every {@link Config.MineSweeper#REPLAY_KEYFRAME_INTERVAL} moves, so any move can be reached
+ * by restoring the keyframe before it and replaying at most that many moves. The index and footer are only written
+ * when the game ends; recordings without them are read sequentially.
+ */
+public final class ReplayFormat {
+    public static final int    MAGIC     = 0x4D535250;   // "MSRP"
+    public static final byte   VERSION   = 2;   // version 1 had no keyframes and no index
+    public static final int    INDEX_MAGIC = 0x4D535249;   // "MSRI"
+    public static final int    FOOTER_SIZE = 16;
+    public static final String EXTENSION = ".msr";
+
+    public static final byte OPEN        = 'v';
+    public static final byte FLAG        = 'f';
+    public static final byte AUTO        = 'a';
+    public static final byte KEYFRAME    = 'K';
+    public static final byte END         = 'E';
+
+    public static final byte WIN         = 'W';
+    public static final byte LOST        = 'L';
+    public static final byte QUIT        = 'Q';
+
+    private ReplayFormat() {}
+
+    /**
+     * Writes an unsigned LEB128 varint: 7 bits per byte, high bit set on every byte but the last.
+     */
+    public static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Re-runs recordings through a headless game at full CPU speed and checks that every game ends in the recorded state.
+ * Used to reproduce bug reports and to replay libraries of real games as regression load.
+ * It can also show the board of a single recording at any move, jumping there through the keyframe index, and measure
+ * what the moves of recordings cost on the terminal, drawn into a {@link VirtualScreen}.
+ * <p>
+ * Usage: {@code java Main replay <file or directory>...}, {@code java Main replay --at <move> <file>}
+ * or {@code java Main replay --cost <file or directory>...}
+ */
+public class ReplayPlayer {
+    /**
+     * Outcome of replaying one recording.
+     */
+    public static class Verdict {
+        int     moves;
+        boolean complete;   // the recording has its end record
+        boolean matches;    // outcome, covered cells, flags and board hash are all as recorded
+        String  mismatch;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--at")) {
+            showMove(Path.of(args[2]), Integer.parseInt(args[1]));
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--cost")) {
+            measureOutput(recordings(args, 1));
+            return;
+        }
+
+        List<Path> files = recordings(args, 0);
+        int passed = 0, failed = 0, incomplete = 0;
+        long moves = 0, nanos = 0;
+        for (Path file : files) {
+            Verdict verdict;
+            long start = System.nanoTime();
+            try {
+                verdict = replay(ReplayReader.open(file));
+            } catch (IOException e) {
+                System.out.printf("%s: %s%n", file, e.getMessage());
+                failed++;
+                continue;
+            }
+            nanos += System.nanoTime() - start;
+            moves += verdict.moves;
+
+            if (!verdict.complete) {
+                incomplete++;
+                System.out.printf("%s: recording has no end record, replayed %d moves%n", file, verdict.moves);
+            } else if (verdict.matches) {
+                passed++;
+            } else {
+                failed++;
+                System.out.printf("%s: MISMATCH %s%n", file, verdict.mismatch);
+            }
+        }
+
+        System.out.printf("%d recordings: %d match, %d differ, %d incomplete%n", files.size(), passed, failed, incomplete);
+        System.out.printf("%d moves in %.1f ms (%.0f moves/s)%n", moves, nanos / 1e6, moves * 1e9 / Math.max(1, nanos));
+        if (failed > 0) System.exit(1);
+    }
+
+    /**
+     * Lists the recordings named by {@code args[from..]}: files, or every recording of a directory.
+     */
+    private static List<Path> recordings(String[] args, int from) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = from; i < args.length; i++) {
+            Path path = Path.of(args[i]);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    listing.filter(p -> p.toString().endsWith(ReplayFormat.EXTENSION)).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Replays a whole recording through {@code setupBoard}/{@code openCell} of a headless game.
+     */
+    public static Verdict replay(ReplayReader reader) {
+        MinesSweeper game = MinesSweeper.headless(reader.width, reader.height, reader.mines, reader.seed, reader.min3BV, reader.max3BV);
+        Verdict verdict = new Verdict();
+        boolean lost = false;
+
+        while (reader.next()) {
+            if (reader.tag == ReplayFormat.END) {
+                verdict.complete = true;
+                byte outcome = lost ? ReplayFormat.LOST : game.isCleared() ? ReplayFormat.WIN : ReplayFormat.QUIT;
+                if (outcome != reader.outcome) {
+                    verdict.mismatch = "outcome " + (char) outcome + ", recorded " + (char) reader.outcome;
+                } else if (game.coveredCount() != reader.coveredCells) {
+                    verdict.mismatch = "covered cells " + game.coveredCount() + ", recorded " + reader.coveredCells;
+                } else if (game.flagsCount() != reader.flags) {
+                    verdict.mismatch = "flags " + game.flagsCount() + ", recorded " + reader.flags;
+                } else if (game.zobristHash() != reader.zobrist) {
+                    verdict.mismatch = "board hash differs";
+                } else {
+                    verdict.matches = true;
+                }
+                break;
+            }
+
+            if (reader.tag == ReplayFormat.KEYFRAME) continue;
+            verdict.moves++;
+            if (!lost) lost = !apply(game, reader);
+        }
+        return verdict;
+    }
+
+    /**
+     * Rebuilds the board as it was after move {@code move}: restores the last keyframe before it and replays
+     * the remaining moves, or replays from the start when the recording has no keyframe that early.
+     *
+     * @return a headless game in the state of that move (or of the last move, for shorter recordings)
+     */
+    public static MinesSweeper stateAt(ReplayReader reader, int move) {
+        MinesSweeper game = MinesSweeper.headless(reader.width, reader.height, reader.mines, reader.seed, reader.min3BV, reader.max3BV);
+        if (reader.seek(move)) {
+            game.restoreKeyframe(reader.firstRow, reader.firstCol, reader.keyframeBits);
+        }
+        while (reader.moveNumber < move && reader.next() && reader.tag != ReplayFormat.END) {
+            if (reader.tag == ReplayFormat.KEYFRAME) continue;
+            if (!apply(game, reader)) break;
+        }
+        return game;
+    }
+
+    /**
+     * Applies the current move record of the reader.
+     *
+     * @return false if the move opened a mine
+     */
+    private static boolean apply(MinesSweeper game, ReplayReader reader) {
+        return switch (reader.tag) {
+            case ReplayFormat.OPEN -> game.openCell(reader.row, reader.col);
+            case ReplayFormat.FLAG -> {
+                game.markFlag(reader.row, reader.col);
+                yield true;
+            }
+            case ReplayFormat.AUTO -> game.autoResolve();
+            default -> true;
+        };
+    }
+
+    /**
+     * Output of the moves of one recording, as drawn by the game.
+     */
+    static class OutputCost {
+        int     moves;
+        long    bytes, escapeSequences, flushes;
+        long    maxBytes;          // of a single move
+        boolean matchesRedraw;     // the board drawn move by move looks like the final board drawn at once
+        boolean lost;              // the mine hit is left to the end of game screens, so the boards are not compared
+    }
+
+    /**
+     * Plays a recording in an offscreen game, one move per input line as in the game loop, with {@code System.out}
+     * drawing into a {@link VirtualScreen}. The initial board is not counted.
+     */
+    static OutputCost outputCost(ReplayReader reader) {
+        MinesSweeper game = MinesSweeper.offscreen(reader.width, reader.height, reader.mines, reader.seed, reader.min3BV, reader.max3BV);
+        int top  = Config.MineSweeper.Coordinates.topLeftCell_row;
+        int left = Config.MineSweeper.Coordinates.topLeftCell_col;
+        int rows = top + reader.height + 8;
+        int cols = Math.max(120, left + reader.width * Config.MineSweeper.CELL_CHARACTER_SIZE + 8);
+        VirtualScreen screen = new VirtualScreen(rows, cols);
+        VirtualScreen redraw = new VirtualScreen(rows, cols);
+        CommandParser move = new CommandParser();
+        OutputCost cost = new OutputCost();
+
+        PrintStream console = System.out;
+        try {
+            System.setOut(screen.printStream());
+            game.displayBoard(0);
+            while (reader.next() && reader.tag != ReplayFormat.END) {
+                if (reader.tag == ReplayFormat.KEYFRAME) continue;
+                screen.resetCounters();
+                boolean alive = game.applyMoves(move.set((char) reader.tag, reader.row, reader.col), System.nanoTime());
+                System.out.flush();
+
+                cost.moves++;
+                cost.bytes += screen.bytes();
+                cost.escapeSequences += screen.escapeSequences();
+                cost.flushes += screen.flushes();
+                cost.maxBytes = Math.max(cost.maxBytes, screen.bytes());
+                if (!alive) {
+                    cost.lost = true;
+                    break;
+                }
+            }
+
+            System.setOut(redraw.printStream());
+            game.displayBoard(0);
+            System.out.flush();
+        } finally {
+            System.setOut(console);
+        }
+        cost.matchesRedraw = cost.lost || screen.looksLike(redraw, top, left, reader.height, reader.width * Config.MineSweeper.CELL_CHARACTER_SIZE);
+        return cost;
+    }
+
+    private static void measureOutput(List<Path> files) {
+        OutputCost total = new OutputCost();
+        int differ = 0;
+        for (Path file : files) {
+            OutputCost cost;
+            try {
+                cost = outputCost(ReplayReader.open(file));
+            } catch (IOException e) {
+                System.out.printf("%s: %s%n", file, e.getMessage());
+                continue;
+            }
+            System.out.printf("%s: %d moves, %.0f bytes, %.1f escape sequences and %.1f flushes per move, largest move %d bytes%s%n",
+                    file, cost.moves, cost.bytes / (double) Math.max(1, cost.moves), cost.escapeSequences / (double) Math.max(1, cost.moves),
+                    cost.flushes / (double) Math.max(1, cost.moves), cost.maxBytes, cost.lost ? ", lost" : cost.matchesRedraw ? "" : ", DIFFERS from a full redraw");
+            total.moves += cost.moves;
+            total.bytes += cost.bytes;
+            total.escapeSequences += cost.escapeSequences;
+            total.flushes += cost.flushes;
+            total.maxBytes = Math.max(total.maxBytes, cost.maxBytes);
+            if (!cost.matchesRedraw) differ++;
+        }
+        System.out.printf("%d recordings, %d moves: %.0f bytes, %.1f escape sequences and %.1f flushes per move, largest move %d bytes%n",
+                files.size(), total.moves, total.bytes / (double) Math.max(1, total.moves), total.escapeSequences / (double) Math.max(1, total.moves),
+                total.flushes / (double) Math.max(1, total.moves), total.maxBytes);
+        System.out.printf("%d recordings differ from a full redraw%n", differ);
+        if (differ > 0) System.exit(1);
+    }
+
+    private static void showMove(Path file, int move) throws IOException {
+        ReplayReader reader = ReplayReader.open(file);
+        long start = System.nanoTime();
+        MinesSweeper game = stateAt(reader, move);
+        long nanos = System.nanoTime() - start;
+
+        StringBuilder board = new StringBuilder();
+        for (int row = 0; row < game.height(); row++) {
+            for (int col = 0; col < game.width(); col++) {
+                int number = game.revealedNumber(row, col);
+                if (game.isFlagged(row, col))         board.append('F');
+                else if (number >= 0)                 board.append(number == 0 ? '.' : (char) ('0' + number));
+                else if (game.isRevealed(row, col))   board.append('*');
+                else                                  board.append('#');
+            }
+            board.append(System.lineSeparator());
+        }
+        System.out.print(board);
+        System.out.printf("Move %d of %s: %d covered cells, %d flags (%d keyframes, %.2f ms)%n",
+                reader.moveNumber, file, game.coveredCount(), game.flagsCount(), reader.keyframeCount(), nanos / 1e6);
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams the records of a recording (see {@link ReplayFormat}) without creating an object per move:
+ * every call to {@link #next()} overwrites the fields of the current record.
+ * <p>
+ * The file is memory-mapped, so seeking with {@link #seek(int)} only touches the pages of the keyframe
+ * and of the moves after it, however long the game was.
+ */
+public class ReplayReader {
+    private final ByteBuffer data;
+    private final int        recordsStart;
+    private       int[]      keyframeMoves   = new int[0];
+    private       long[]     keyframeOffsets = new long[0];
+
+    // header
+    int  width, height, mines, min3BV, max3BV;
+    long seed;
+    long startMillis;
+
+    // current record
+    byte       tag;
+    int        moveNumber;   // moves read so far, including the current one
+    int        row, col;
+    long       delayMillis;
+    int        firstRow, firstCol;
+    ByteBuffer keyframeBits; // view into the file, see MinesSweeper.restoreKeyframe
+    byte       outcome;
+    int        coveredCells, flags;
+    long       zobrist;
+
+    private ReplayReader(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.remaining() < 5 || data.getInt() != ReplayFormat.MAGIC) throw new IOException("Not a MinesSweeper recording");
+        byte version = data.get();
+        if (version < 1 || version > ReplayFormat.VERSION) throw new IOException("Unsupported recording version " + version);
+
+        width       = (int) ReplayFormat.getVarint(data);
+        height      = (int) ReplayFormat.getVarint(data);
+        mines       = (int) ReplayFormat.getVarint(data);
+        min3BV      = (int) ReplayFormat.getVarint(data);
+        max3BV      = (int) ReplayFormat.getVarint(data);
+        seed        = data.getLong();
+        startMillis = ReplayFormat.getVarint(data);
+        recordsStart = data.position();
+        readIndex();
+    }
+
+    public static ReplayReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new ReplayReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Loads the keyframe index of a finished recording and hides it from {@link #next()}.
+     */
+    private void readIndex() {
+        int limit = data.limit();
+        if (limit - recordsStart < ReplayFormat.FOOTER_SIZE || data.getInt(limit - 4) != ReplayFormat.INDEX_MAGIC) return;
+        long indexOffset = data.getLong(limit - ReplayFormat.FOOTER_SIZE);
+        int  count       = data.getInt(limit - 8);
+        if (indexOffset < recordsStart || indexOffset > limit - ReplayFormat.FOOTER_SIZE || count < 0) return;
+
+        ByteBuffer index = data.duplicate().position((int) indexOffset);
+        int[]  moves   = new int[count];
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            moves[i]   = (i == 0 ? 0 : moves[i - 1])   + (int) ReplayFormat.getVarint(index);
+            offsets[i] = (i == 0 ? 0 : offsets[i - 1]) + ReplayFormat.getVarint(index);
+        }
+        keyframeMoves   = moves;
+        keyframeOffsets = offsets;
+        data.limit((int) indexOffset);
+    }
+
+    public int keyframeCount() {
+        return keyframeMoves.length;
+    }
+
+    /**
+     * Positions the reader so that the following records lead to move {@code move}.
+     *
+     * @return true if the reader jumped to a keyframe, which is then the current record; false if the moves
+     *         have to be replayed from the start of the game
+     */
+    public boolean seek(int move) {
+        int at = Arrays.binarySearch(keyframeMoves, move);
+        if (at < 0) at = -at - 2;   // last keyframe before the move
+        if (at < 0) {
+            data.position(recordsStart);
+            moveNumber = 0;
+            return false;
+        }
+        data.position((int) keyframeOffsets[at]);
+        return next() && tag == ReplayFormat.KEYFRAME;
+    }
+
+    /**
+     * Reads the next record into the fields of this reader.
+     *
+     * @return false at the end of the recording, including a recording cut short by a crash
+     */
+    public boolean next() {
+        if (!data.hasRemaining()) return false;
+        try {
+            tag = data.get();
+            switch (tag) {
+                case ReplayFormat.OPEN, ReplayFormat.FLAG -> {
+                    row = (int) ReplayFormat.getVarint(data);
+                    col = (int) ReplayFormat.getVarint(data);
+                    delayMillis = ReplayFormat.getVarint(data);
+                    moveNumber++;
+                }
+                case ReplayFormat.AUTO -> {
+                    delayMillis = ReplayFormat.getVarint(data);
+                    moveNumber++;
+                }
+                case ReplayFormat.KEYFRAME -> {
+                    moveNumber = (int) ReplayFormat.getVarint(data);
+                    firstRow   = (int) ReplayFormat.getVarint(data);
+                    firstCol   = (int) ReplayFormat.getVarint(data);
+                    int bytes  = MinesSweeper.keyframeBytes(width, height);
+                    keyframeBits = data.slice(data.position(), bytes);
+                    data.position(data.position() + bytes);
+                }
+                case ReplayFormat.END -> {
+                    outcome      = data.get();
+                    coveredCells = (int) ReplayFormat.getVarint(data);
+                    flags        = (int) ReplayFormat.getVarint(data);
+                    zobrist      = data.getLong();
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException _) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Appends the moves of a game to a recording file, see {@link ReplayFormat}.
+ * Moves are buffered and written to the channel in blocks. A recording that fails to write is silently abandoned,
+ * the game itself is never affected.
+ * <p>
+ * Every {@link Config.MineSweeper#REPLAY_KEYFRAME_INTERVAL} moves a keyframe of the board is appended, and the offsets
+ * of all keyframes are written as an index at the end of the file when the game finishes.
+ */
+public class ReplayRecorder {
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path        path;
+    private final FileChannel channel;
+    private final ByteBuffer  buffer;
+    private       long        written;          // bytes already handed to the channel
+    private       long        lastMoveMillis;
+    private       int         moves;
+    private       int         keyframes;
+    private       int[]       keyframeMoves   = new int[16];
+    private       long[]      keyframeOffsets = new long[16];
+    private       boolean     failed;
+    private       boolean     finished;
+
+    private ReplayRecorder(Path path, FileChannel channel, int keyframeBytes) {
+        this.path = path;
+        this.channel = channel;
+        // a keyframe is always written in one piece
+        this.buffer = ByteBuffer.allocateDirect(Math.max(8192, keyframeBytes + 64));
+    }
+
+    /**
+     * Creates a new recording in the given directory and writes its header.
+     *
+     * @return the recorder, or null if the file cannot be created
+     */
+    public static ReplayRecorder create(Path directory, int width, int height, int mines, int min3BV, int max3BV, long seed) {
+        try {
+            Files.createDirectories(directory);
+            Path path = directory.resolve(LocalDateTime.now().format(FILE_NAME) + "-" + Long.toHexString(seed) + ReplayFormat.EXTENSION);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            ReplayRecorder recorder = new ReplayRecorder(path, channel, MinesSweeper.keyframeBytes(width, height));
+
+            recorder.lastMoveMillis = System.currentTimeMillis();
+            ByteBuffer header = recorder.buffer;
+            header.putInt(ReplayFormat.MAGIC);
+            header.put(ReplayFormat.VERSION);
+            ReplayFormat.putVarint(header, width);
+            ReplayFormat.putVarint(header, height);
+            ReplayFormat.putVarint(header, mines);
+            ReplayFormat.putVarint(header, min3BV);
+            ReplayFormat.putVarint(header, max3BV);
+            header.putLong(seed);
+            ReplayFormat.putVarint(header, recorder.lastMoveMillis);
+            return recorder;
+        } catch (IOException _) {
+            return null;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @param mode {@link ReplayFormat#OPEN}, {@link ReplayFormat#FLAG} or {@link ReplayFormat#AUTO}
+     */
+    public void recordMove(byte mode, int row, int col) {
+        if (failed) return;
+        ensureRoom(32);
+        long now = System.currentTimeMillis();
+        buffer.put(mode);
+        if (mode != ReplayFormat.AUTO) {
+            ReplayFormat.putVarint(buffer, row);
+            ReplayFormat.putVarint(buffer, col);
+        }
+        ReplayFormat.putVarint(buffer, Math.max(0, now - lastMoveMillis));
+        lastMoveMillis = now;
+        moves++;
+    }
+
+    /**
+     * Appends a keyframe of the game if {@link Config.MineSweeper#REPLAY_KEYFRAME_INTERVAL} moves were recorded since the last one.
+     * Called after a recorded move has been applied.
+     */
+    public void keyframeIfDue(MinesSweeper game) {
+        if (failed || moves == 0 || moves % Config.MineSweeper.REPLAY_KEYFRAME_INTERVAL != 0) return;
+        if (keyframes > 0 && keyframeMoves[keyframes - 1] == moves) return;
+        if (game.firstRow() < 0) return;   // nothing opened yet, the board is still empty
+
+        ensureRoom(MinesSweeper.keyframeBytes(game.width(), game.height()) + 32);
+        if (keyframes == keyframeMoves.length) {
+            keyframeMoves   = Arrays.copyOf(keyframeMoves, keyframes * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+        }
+        keyframeMoves[keyframes]   = moves;
+        keyframeOffsets[keyframes] = written + buffer.position();
+        keyframes++;
+
+        buffer.put(ReplayFormat.KEYFRAME);
+        ReplayFormat.putVarint(buffer, moves);
+        ReplayFormat.putVarint(buffer, game.firstRow());
+        ReplayFormat.putVarint(buffer, game.firstCol());
+        game.writeKeyframe(buffer);
+    }
+
+    /**
+     * Writes the final state of the game and closes the recording. Only the first call does, so that the game thread
+     * can close a recording whose end the replay sink may or may not have received.
+     *
+     * @param outcome {@link ReplayFormat#WIN}, {@link ReplayFormat#LOST} or {@link ReplayFormat#QUIT}
+     */
+    public synchronized void finish(byte outcome, int coveredCells, int flags, long zobrist) {
+        if (failed || finished) return;
+        finished = true;
+        ensureRoom(32);
+        buffer.put(ReplayFormat.END);
+        buffer.put(outcome);
+        ReplayFormat.putVarint(buffer, coveredCells);
+        ReplayFormat.putVarint(buffer, flags);
+        buffer.putLong(zobrist);
+
+        long indexOffset = written + buffer.position();
+        for (int i = 0; i < keyframes; i++) {
+            ensureRoom(32);
+            ReplayFormat.putVarint(buffer, keyframeMoves[i] - (i == 0 ? 0 : keyframeMoves[i - 1]));
+            ReplayFormat.putVarint(buffer, keyframeOffsets[i] - (i == 0 ? 0 : keyframeOffsets[i - 1]));
+        }
+        ensureRoom(ReplayFormat.FOOTER_SIZE);
+        buffer.putLong(indexOffset);
+        buffer.putInt(keyframes);
+        buffer.putInt(ReplayFormat.INDEX_MAGIC);
+        drain();
+        try {
+            channel.close();
+        } catch (IOException _) {
+            failed = true;
+        }
+    }
+
+    private void ensureRoom(int bytes) {
+        if (buffer.remaining() < bytes) drain();
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) written += channel.write(buffer);
+        } catch (IOException _) {
+            failed = true;
+        }
+        buffer.clear();
+    }
+}
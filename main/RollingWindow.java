@@ -0,0 +1,69 @@
+import java.util.Arrays;
+
+/**
+ * The last values of a measure, in constant memory: a ring of {@code capacity} longs where a new value replaces the
+ * oldest one, with the mean, maximum and percentiles of what it holds.
+ * <p>
+ * Where {@link LogHistogram} tells how the game ran since the stats were started, a window tells how it runs now, for
+ * live figures such as the {@link PerformanceHud}. Percentiles sort a copy kept with the ring, so nothing is allocated
+ * after construction.
+ */
+public class RollingWindow {
+    private final long[] values;
+    private final long[] sorted;   // scratch for percentiles
+    private int          next, size;
+
+    public RollingWindow(int capacity) {
+        values = new long[capacity];
+        sorted = new long[capacity];
+    }
+
+    public synchronized void record(long value) {
+        values[next] = value;
+        next = (next + 1) % values.length;
+        size = Math.min(size + 1, values.length);
+    }
+
+    public synchronized void clear() {
+        next = 0;
+        size = 0;
+    }
+
+    /**
+     * Values in the window, at most its capacity.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * The newest value, or 0 for an empty window.
+     */
+    public synchronized long last() {
+        return size == 0 ? 0 : values[(next - 1 + values.length) % values.length];
+    }
+
+    public synchronized double mean() {
+        if (size == 0) return 0;
+        long total = 0;
+        for (int i = 0; i < size; i++) total += values[i];
+        return (double) total / size;
+    }
+
+    public synchronized long max() {
+        long max = 0;
+        for (int i = 0; i < size; i++) max = Math.max(max, values[i]);
+        return max;
+    }
+
+    /**
+     * Returns the value below which {@code percent} percent of the values in the window fall, or 0 for an empty window.
+     */
+    public synchronized long percentile(double percent) {
+        if (size == 0) return 0;
+        System.arraycopy(values, 0, sorted, 0, size);
+        Arrays.sort(sorted, 0, size);
+        int rank = (int) Math.max(1, Math.ceil(percent / 100 * size));
+        return sorted[rank - 1];
+    }
+}
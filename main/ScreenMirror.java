@@ -0,0 +1,186 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps a copy of the game screen, so that an overlay drawn over it (the help) can be taken away by redrawing only the
+ * rows it covered, in one write, instead of the whole game, and the parts a terminal too small had lost can be drawn
+ * again when it is resized ({@link #resize}).
+ * <p>
+ * While attached, what is printed on {@code System.out} also goes into a {@link VirtualScreen} of the terminal's size,
+ * or of the size of the game's {@link TerminalLayout} if that is larger: the copy holds the screen as the game drew
+ * it, whatever the terminal could show. Between {@link #beginOverlay()} and {@link #endOverlay()} it does not: the
+ * copy stays as the game left the screen, and the overlay tells which rows it draws on with {@link #cover}. What is
+ * drawn with {@link #drawOver} never goes into the copy.
+ */
+public class ScreenMirror {
+    private final PrintStream   terminal;    // System.out before attaching
+    private final VirtualScreen screen;
+    private final AnsiOptimizer optimizer = new AnsiOptimizer();
+    private volatile boolean    mirroring = true;
+    private int                 coveredTop = Integer.MAX_VALUE, coveredBottom;
+    private int                 rows, cols;   // of the terminal
+    private int                 noticeRow;    // where the terminal is said to be too small, 0 if it is not
+
+    private ScreenMirror(PrintStream terminal, int rows, int cols, TerminalLayout layout) {
+        this.terminal = terminal;
+        this.screen = new VirtualScreen(Math.max(rows, layout.rows()), Math.max(cols, layout.cols()));
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Starts copying {@code System.out}, for a game laid out as {@code layout}.
+     *
+     * @return the mirror, or null if the terminal's size is unknown or its output is not UTF-8, the copy would then be wrong
+     */
+    public static ScreenMirror attach(TerminalLayout layout) {
+        int[] size = TerminalInput.size();
+        if (size == null || !System.out.charset().equals(StandardCharsets.UTF_8)) return null;
+        ScreenMirror mirror = new ScreenMirror(System.out, size[0], size[1], layout);
+        System.setOut(new PrintStream(mirror.new Tee(), false, StandardCharsets.UTF_8));
+        return mirror;
+    }
+
+    /**
+     * Stops copying, {@code System.out} is what it was before {@link #attach()}.
+     */
+    public void detach() {
+        System.out.flush();
+        System.setOut(terminal);
+    }
+
+    /**
+     * Rows of the terminal, as of the last {@link #resize}.
+     */
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * Stops copying: what is printed from now on is drawn over the game until {@link #endOverlay()}.
+     */
+    public void beginOverlay() {
+        System.out.flush();
+        mirroring = false;
+        coveredTop = Integer.MAX_VALUE;
+        coveredBottom = 0;
+    }
+
+    /**
+     * Tells that the overlay draws on rows {@code top} to {@code bottom}.
+     */
+    public void cover(int top, int bottom) {
+        coveredTop = Math.min(coveredTop, Math.max(1, top));
+        coveredBottom = Math.max(coveredBottom, Math.min(rows, bottom));
+    }
+
+    /**
+     * Draws the rows the overlay covered as the game had them, puts the cursor back where it was, and copies again.
+     */
+    public void endOverlay() {
+        StringBuilder frame = new StringBuilder();
+        screen.appendRect(frame, coveredTop, 1, coveredBottom, cols, true, AppTexts.Colors.DEPTH);
+        Utils.appendCursorTo(frame, screen.cursorRow(), screen.cursorCol());
+        FramePacer.write(optimizer.optimize(frame));
+        System.out.flush();
+        mirroring = true;
+    }
+
+    /**
+     * Follows the terminal to its new size: draws the screen again if {@link TerminalLayout#damaged} says the old size
+     * lost some of it, and the row the last notice was on, and if the game does not fit, says on the last row what size
+     * it needs. Nothing else is drawn.
+     */
+    public void resize(int rows, int cols, TerminalLayout layout) {
+        // the same size again only matters if the game did not fit and was not told yet
+        if (rows == this.rows && cols == this.cols && (noticeRow != 0 || layout.fitsIn(rows, cols))) return;
+        StringBuilder frame = new StringBuilder();
+        if (layout.damaged(this.rows, this.cols)) {
+            screen.appendRect(frame, 1, 1, rows, cols, true, AppTexts.Colors.DEPTH);
+            if (rows > screen.rows()) {
+                // below the copy, the game drew nothing
+                Utils.appendCursorTo(frame, screen.rows() + 1, 1);
+                frame.append(Utils.CLEAR_TO_END);
+            }
+        }
+        int notice = layout.fitsIn(rows, cols) ? 0 : rows;
+        if (noticeRow != 0 && noticeRow != notice && noticeRow <= rows) {
+            screen.appendRect(frame, noticeRow, 1, noticeRow, cols, true, AppTexts.Colors.DEPTH);
+        }
+        if (notice != 0) {
+            // one column short of the edge, a character in the last column of the last row may scroll the screen
+            String text = String.format(AppTexts.MinesSweeper.TERMINAL_TOO_SMALL_FORMAT, layout.rows(), layout.cols());
+            Utils.appendCursorTo(frame, notice, 1);
+            frame.append(AppTexts.MinesSweeper.TERMINAL_TOO_SMALL_COLOR).append(text, 0, Math.clamp(cols - 1, 0, text.length()))
+                    .append(AppTexts.Colors.RESET_COLOR).append(Utils.CLEAR_LINE_TO_END);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        noticeRow = notice;
+        if (frame.isEmpty()) return;
+
+        drawOver(frame);   // the notice is not part of the game
+    }
+
+    /**
+     * Draws over the game without copying it, for what shows on top of the game for a while (the performance HUD),
+     * and puts the cursor back where the game left it. {@link #restore} takes it away.
+     */
+    public void drawOver(StringBuilder frame) {
+        Utils.appendCursorTo(frame, screen.cursorRow(), screen.cursorCol());
+        System.out.flush();
+        // the terminal is behind the copy, writing to it straight leaves the copy as it is
+        terminal.print(optimizer.optimize(frame));
+        terminal.flush();
+    }
+
+    /**
+     * Draws a rectangle of the screen again as the game had it, over what {@link #drawOver} put there.
+     */
+    public void restore(int top, int left, int bottom, int right) {
+        StringBuilder frame = new StringBuilder();
+        screen.appendRect(frame, top, left, bottom, right, right >= cols, AppTexts.Colors.DEPTH);
+        drawOver(frame);
+    }
+
+    /**
+     * Bytes the game printed since attaching, overlays and what is drawn over it left out.
+     */
+    public long bytes() {
+        return screen.bytes();
+    }
+
+    /**
+     * Escape sequences the game printed since attaching, counted like {@link #bytes()}.
+     */
+    public long escapeSequences() {
+        return screen.escapeSequences();
+    }
+
+    /**
+     * Sends the output to the terminal, and to the copy unless an overlay is up.
+     */
+    private final class Tee extends OutputStream {
+        @Override
+        public void write(int b) {
+            terminal.write(b);
+            if (mirroring) screen.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            terminal.write(bytes, offset, length);
+            if (mirroring) screen.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() {
+            terminal.flush();
+        }
+    }
+}
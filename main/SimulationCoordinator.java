@@ -0,0 +1,223 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads a large simulation campaign over several {@link SimulationWorker} JVMs, the same way it would be spread over nodes.
+ * <p>
+ * Seeds are handed out in ranges. Every worker streams back one binary {@link SimulationRecord} per game over its stdout pipe,
+ * and the coordinator merges them into global {@link SimulationStats}. If a worker dies in the middle of a range,
+ * the seeds it did not report are re-issued and a replacement worker is started.
+ * <p>
+ * Usage: {@code java Main simulate [--workers N] [--games N] [--range N] [--seed N] [--level 1|2|3 | --size W H M] [--band MIN_3BV MAX_3BV]}
+ */
+public class SimulationCoordinator {
+    private static class SeedRange {
+        final long from, to;   // [from, to)
+
+        SeedRange(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private final int width, height, mines;
+    private final int min3BV, max3BV;
+    private final int workers;
+    private final LinkedBlockingDeque<SeedRange> pending = new LinkedBlockingDeque<>();
+    private final AtomicLong    remaining;
+    private final AtomicInteger restarts  = new AtomicInteger();
+    private final AtomicInteger reissued  = new AtomicInteger();
+    private volatile boolean    aborted;
+
+    public SimulationCoordinator(int width, int height, int mines, int min3BV, int max3BV, int workers, long baseSeed, long games, int rangeSize) {
+        // a range of 0 would never move past the first seed, and no worker would leave the ranges queued
+        if (workers <= 0) throw new IllegalArgumentException("--workers must be positive: " + workers);
+        if (games <= 0) throw new IllegalArgumentException("--games must be positive: " + games);
+        if (rangeSize <= 0) throw new IllegalArgumentException("--range must be positive: " + rangeSize);
+        this.width = width;
+        this.height = height;
+        this.mines = mines;
+        this.min3BV = min3BV;
+        this.max3BV = max3BV;
+        this.workers = workers;
+        this.remaining = new AtomicLong(games);
+        for (long from = baseSeed; from < baseSeed + games; from += rangeSize) {
+            pending.add(new SeedRange(from, Math.min(from + rangeSize, baseSeed + games)));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int  workers   = Config.Simulation.DEFAULT_WORKERS();
+        long games     = Config.Simulation.DEFAULT_GAMES;
+        int  rangeSize = Config.Simulation.DEFAULT_RANGE_SIZE;
+        long seed      = Config.Simulation.DEFAULT_BASE_SEED;
+        int  width     = Config.MineSweeper.EXPERT_WIDTH;
+        int  height    = Config.MineSweeper.EXPERT_HEIGHT;
+        int  mines     = Config.MineSweeper.EXPERT_MINES;
+        int  min3BV    = 0;
+        int  max3BV    = Integer.MAX_VALUE;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--workers" -> workers   = Integer.parseInt(args[++i]);
+                case "--games"   -> games     = Long.parseLong(args[++i]);
+                case "--range"   -> rangeSize = Integer.parseInt(args[++i]);
+                case "--seed"    -> seed      = Long.parseLong(args[++i]);
+                case "--level"   -> {
+                    switch (args[++i]) {
+                        case "1" -> { width = Config.MineSweeper.BEGINNER_WIDTH;     height = Config.MineSweeper.BEGINNER_HEIGHT;     mines = Config.MineSweeper.BEGINNER_MINES; }
+                        case "2" -> { width = Config.MineSweeper.INTERMEDIATE_WIDTH; height = Config.MineSweeper.INTERMEDIATE_HEIGHT; mines = Config.MineSweeper.INTERMEDIATE_MINES; }
+                        default  -> { width = Config.MineSweeper.EXPERT_WIDTH;       height = Config.MineSweeper.EXPERT_HEIGHT;       mines = Config.MineSweeper.EXPERT_MINES; }
+                    }
+                }
+                case "--size"    -> {
+                    width  = Integer.parseInt(args[++i]);
+                    height = Integer.parseInt(args[++i]);
+                    mines  = Integer.parseInt(args[++i]);
+                }
+                case "--band"    -> {
+                    min3BV = Integer.parseInt(args[++i]);
+                    max3BV = Integer.parseInt(args[++i]);
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        SimulationCoordinator coordinator = new SimulationCoordinator(width, height, mines, min3BV, max3BV, workers, seed, games, rangeSize);
+        long start = System.nanoTime();
+        SimulationStats stats = coordinator.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%nBoard %dx%d with %d mines, %d workers%n", width, height, mines, workers);
+        System.out.printf("Games: %d  Wins: %d (%.2f%%)%n", stats.getGames(), stats.getWins(), stats.winRate() * 100);
+        System.out.printf("Average 3BV: %.1f  layouts sampled per game: %.1f%n", stats.average3BV(), stats.averageGenerationAttempts());
+        System.out.printf("Average moves: %.1f  guesses: %.2f  game time: %.1f us%n", stats.averageMoves(), stats.averageGuesses(), stats.averageGameMicros());
+        System.out.printf("Solver cache: %.1f%% hits over %d component lookups%n", stats.cacheHitRate() * 100, stats.getCacheLookups());
+        System.out.printf("Throughput: %.0f games/s over %.2f s%n", stats.getGames() / seconds, seconds);
+        System.out.printf("Worker restarts: %d  re-issued ranges: %d%n", coordinator.restarts.get(), coordinator.reissued.get());
+        if (coordinator.aborted) {
+            System.out.println("Campaign aborted after too many worker failures, results are partial.");
+        }
+    }
+
+    /**
+     * Runs the whole campaign and blocks until every seed has been reported (or the campaign is aborted).
+     *
+     * @return the merged statistics of all workers
+     */
+    public SimulationStats run() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        List<SimulationStats> partials = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            SimulationStats partial = new SimulationStats();
+            partials.add(partial);
+            Thread thread = new Thread(() -> superviseWorker(partial), "simulation-worker-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+
+        long total = remaining.get();
+        while (remaining.get() > 0 && !aborted) {
+            System.out.printf("\r%d / %d games", total - remaining.get(), total);
+            System.out.flush();
+            Utils.sleep(500);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("\r%d / %d games", total - remaining.get(), total);
+
+        SimulationStats stats = new SimulationStats();
+        for (SimulationStats partial : partials) {
+            stats.merge(partial);
+        }
+        return stats;
+    }
+
+    /**
+     * Keeps one worker process busy until all seeds are done, replacing it whenever it crashes.
+     */
+    private void superviseWorker(SimulationStats stats) {
+        SimulationRecord record = new SimulationRecord();
+        while (remaining.get() > 0 && !aborted) {
+            Process process;
+            try {
+                process = startWorker();
+            } catch (IOException e) {
+                System.err.println("Cannot start a simulation worker: " + e.getMessage());
+                aborted = true;
+                return;
+            }
+
+            DataOutputStream commands = new DataOutputStream(process.getOutputStream());
+            DataInputStream  results  = new DataInputStream(new BufferedInputStream(process.getInputStream(), 1 << 16));
+            SeedRange range = null;
+            long next = 0;
+            try {
+                while (remaining.get() > 0 && !aborted) {
+                    // another worker may still crash and re-issue seeds, so idle workers keep polling
+                    range = pending.poll(100, TimeUnit.MILLISECONDS);
+                    if (range == null) continue;
+
+                    commands.writeLong(range.from);
+                    commands.writeLong(range.to);
+                    commands.flush();
+
+                    for (next = range.from; next < range.to; next++) {
+                        record.read(results);
+                        if (record.seed != next) {
+                            throw new IOException("Worker reported seed " + record.seed + " while " + next + " was expected");
+                        }
+                        stats.add(record);
+                        remaining.decrementAndGet();
+                    }
+                    range = null;
+                }
+                commands.close();
+                process.waitFor();
+                return;
+            } catch (IOException | InterruptedException e) {
+                process.destroyForcibly();
+                if (range != null) {
+                    pending.addFirst(new SeedRange(next, range.to));
+                    reissued.incrementAndGet();
+                }
+                if (restarts.incrementAndGet() > Config.Simulation.MAX_WORKER_RESTARTS) {
+                    aborted = true;
+                }
+            }
+        }
+    }
+
+    private Process startWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        for (String jvmArgument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // debugger and agent options would clash between processes
+            if (!jvmArgument.startsWith("-agentlib") && !jvmArgument.startsWith("-javaagent")) {
+                command.add(jvmArgument);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SimulationWorker.class.getName());
+        command.add(String.valueOf(width));
+        command.add(String.valueOf(height));
+        command.add(String.valueOf(mines));
+        command.add(String.valueOf(min3BV));
+        command.add(String.valueOf(max3BV));
+
+        return new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+}
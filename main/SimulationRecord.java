@@ -0,0 +1,49 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Fixed-width binary result of one simulated game, as streamed from a worker process to the coordinator.
+ */
+public class SimulationRecord {
+    public static final int BYTES = Long.BYTES + Byte.BYTES + 6 * Integer.BYTES + Long.BYTES;
+
+    long    seed;
+    boolean win;
+    int     moves;
+    int     guesses;
+    long    nanos;
+    int     cacheHits;     // solver transposition cache lookups during the game
+    int     cacheMisses;
+    int     threeBV;
+    int     generationAttempts;
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeLong(seed);
+        out.writeByte(win ? 1 : 0);
+        out.writeInt(moves);
+        out.writeInt(guesses);
+        out.writeLong(nanos);
+        out.writeInt(cacheHits);
+        out.writeInt(cacheMisses);
+        out.writeInt(threeBV);
+        out.writeInt(generationAttempts);
+    }
+
+    /**
+     * Reads the next record into this instance so the coordinator can reuse one object per worker.
+     *
+     * @throws java.io.EOFException if the stream ends before a full record, e.g. when the worker died
+     */
+    public void read(DataInputStream in) throws IOException {
+        seed    = in.readLong();
+        win     = in.readByte() != 0;
+        moves   = in.readInt();
+        guesses = in.readInt();
+        nanos   = in.readLong();
+        cacheHits   = in.readInt();
+        cacheMisses = in.readInt();
+        threeBV     = in.readInt();
+        generationAttempts = in.readInt();
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Aggregated statistics of a simulation campaign. Each coordinator thread keeps its own instance,
+ * and the partial results are merged once the campaign is over.
+ */
+public class SimulationStats {
+    private long games;
+    private long wins;
+    private long moves;
+    private long guesses;
+    private long nanos;
+    private long cacheHits;
+    private long cacheMisses;
+    private long threeBV;
+    private long generationAttempts;
+
+    public void add(SimulationRecord record) {
+        games++;
+        if (record.win) wins++;
+        moves   += record.moves;
+        guesses += record.guesses;
+        nanos   += record.nanos;
+        cacheHits   += record.cacheHits;
+        cacheMisses += record.cacheMisses;
+        threeBV     += record.threeBV;
+        generationAttempts += record.generationAttempts;
+    }
+
+    public void merge(SimulationStats other) {
+        games   += other.games;
+        wins    += other.wins;
+        moves   += other.moves;
+        guesses += other.guesses;
+        nanos   += other.nanos;
+        cacheHits   += other.cacheHits;
+        cacheMisses += other.cacheMisses;
+        threeBV     += other.threeBV;
+        generationAttempts += other.generationAttempts;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public double winRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    public double averageMoves() {
+        return games == 0 ? 0 : (double) moves / games;
+    }
+
+    public double averageGuesses() {
+        return games == 0 ? 0 : (double) guesses / games;
+    }
+
+    public double average3BV() {
+        return games == 0 ? 0 : (double) threeBV / games;
+    }
+
+    /**
+     * @return average number of layouts sampled per game to hit the requested 3BV band
+     */
+    public double averageGenerationAttempts() {
+        return games == 0 ? 0 : (double) generationAttempts / games;
+    }
+
+    /**
+     * @return share of solver component lookups answered by the workers' transposition caches
+     */
+    public double cacheHitRate() {
+        return cacheHits + cacheMisses == 0 ? 0 : (double) cacheHits / (cacheHits + cacheMisses);
+    }
+
+    public long getCacheLookups() {
+        return cacheHits + cacheMisses;
+    }
+
+    /**
+     * @return average CPU time of a single game inside a worker, in microseconds
+     */
+    public double averageGameMicros() {
+        return games == 0 ? 0 : nanos / 1000.0 / games;
+    }
+}
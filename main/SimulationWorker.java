@@ -0,0 +1,76 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Worker process of a simulation campaign, started by {@link SimulationCoordinator}.
+ * <p>
+ * Protocol: the coordinator writes seed ranges to stdin as pairs of longs {@code [from, to)}; for every seed
+ * the worker plays one headless game with {@link MinesSweeperBot} and writes a {@link SimulationRecord} to stdout.
+ * Records of a range are written in seed order and flushed when the range is done. The worker exits when stdin is closed.
+ * <p>
+ * Usage: {@code java SimulationWorker <width> <height> <mines> [<min 3BV> <max 3BV>]}
+ */
+public class SimulationWorker {
+    private static final int FLUSH_EVERY = 256;  // records, keeps the coordinator's progress moving on long ranges
+
+    public static void main(String[] args) throws IOException {
+        int width  = Integer.parseInt(args[0]);
+        int height = Integer.parseInt(args[1]);
+        int mines  = Integer.parseInt(args[2]);
+        int min3BV = args.length > 4 ? Integer.parseInt(args[3]) : 0;
+        int max3BV = args.length > 4 ? Integer.parseInt(args[4]) : Integer.MAX_VALUE;
+
+        // stdout carries binary records only, stray prints must never reach it
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        SimulationRecord record = new SimulationRecord();
+        while (true) {
+            long from, to;
+            try {
+                from = in.readLong();
+                to   = in.readLong();
+            } catch (EOFException _) {
+                break;
+            }
+
+            for (long seed = from; seed < to; seed++) {
+                playGame(width, height, mines, min3BV, max3BV, seed, record);
+                record.write(out);
+                if ((seed - from) % FLUSH_EVERY == FLUSH_EVERY - 1) out.flush();
+            }
+            out.flush();
+        }
+        out.close();
+    }
+
+    /**
+     * Plays a single headless game with the given seed and stores its result into {@code record}.
+     */
+    static void playGame(int width, int height, int mines, int min3BV, int max3BV, long seed, SimulationRecord record) {
+        long hits   = MinesSolver.CACHE.getHits();
+        long misses = MinesSolver.CACHE.getMisses();
+        long start  = System.nanoTime();
+        MinesSweeper game = MinesSweeper.headless(width, height, mines, seed, min3BV, max3BV);
+        MinesSweeperBot bot = new MinesSweeperBot(~seed);
+
+        record.seed    = seed;
+        record.win     = bot.play(game);
+        record.moves   = bot.getMoves();
+        record.guesses = bot.getGuesses();
+        record.nanos   = System.nanoTime() - start;
+        record.cacheHits   = (int) (MinesSolver.CACHE.getHits() - hits);
+        record.cacheMisses = (int) (MinesSolver.CACHE.getMisses() - misses);
+        record.threeBV     = game.threeBV();
+        record.generationAttempts = (int) game.generationAttempts();
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded transposition cache of solved frontier components, shared by every game in the process.
+ * Entries are spread over independently locked LRU stripes so simulation threads rarely contend.
+ */
+public class SolverCache {
+    private static final class Stripe extends LinkedHashMap<Long, MinesSolver.ComponentSolution> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, MinesSolver.ComponentSolution> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private final Stripe[]  stripes;
+    private final int       mask;
+    private final LongAdder hits   = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity total number of cached components
+     * @param stripes  number of lock stripes, rounded up to a power of two
+     */
+    public SolverCache(int capacity, int stripes) {
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[count];
+        this.mask = count - 1;
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(Math.max(1, capacity / count));
+        }
+    }
+
+    public MinesSolver.ComponentSolution get(long key) {
+        Stripe stripe = stripeOf(key);
+        MinesSolver.ComponentSolution solution;
+        synchronized (stripe) {
+            solution = stripe.get(key);
+        }
+        if (solution == null) misses.increment();
+        else hits.increment();
+        return solution;
+    }
+
+    public void put(long key, MinesSolver.ComponentSolution solution) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.put(key, solution);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long h = hits.sum(), m = misses.sum();
+        return h + m == 0 ? 0 : (double) h / (h + m);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(long key) {
+        return stripes[(int) (key ^ (key >>> 32)) & mask];
+    }
+}
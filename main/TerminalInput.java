@@ -0,0 +1,239 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Raw keyboard input on Unix terminals: the terminal is switched out of line mode with {@code stty}, and a dedicated
+ * reader thread decodes every byte as it arrives ({@link InputDecoder}) into a small ring of events for the game loop.
+ * <p>
+ * Line mode is restored by {@link #stop()}, and by a shutdown hook if the JVM exits first. When stdin is not a terminal
+ * or {@code stty} is missing, {@link #start(boolean)} returns null and callers keep reading lines: the modes are set
+ * with {@code stty} reading stdin, which fails on a pipe or a file even when the process has a controlling terminal.
+ * <p>
+ * With mouse reporting on, the terminal sends every mouse motion. Consecutive motion events are coalesced in the
+ * ring (the newest replaces the one still waiting), so a fast mouse never queues up work for the game loop.
+ * <p>
+ * A second thread asks the terminal its size every {@link Config.Display#RESIZE_POLL_MILLIS} and posts an
+ * {@link InputDecoder#RESIZE} event when it changes, coalesced the same way; {@link #lastSize()} tells the new size.
+ * Polling {@code stty} is what a JVM can do without native code, it has no portable way to catch {@code SIGWINCH}.
+ */
+public class TerminalInput implements InputDecoder.Sink {
+    private static final int CAPACITY = 256;   // events, a power of two
+
+    // xterm: report presses, releases and all motion, in SGR (decimal) encoding
+    private static final String MOUSE_ON  = "\033[?1000h\033[?1003h\033[?1006h";
+    private static final String MOUSE_OFF = "\033[?1006l\033[?1003l\033[?1000l";
+
+    private final String       savedMode;
+    private final InputDecoder decoder = new InputDecoder(this);
+    private final int[]        events = new int[CAPACITY];
+    private final long[]       arrivals = new long[CAPACITY];   // System.nanoTime() of each event
+    private       int          head, tail;     // guarded by this
+    private       long         takenArrival;
+    private volatile boolean   running = true;
+    private final boolean      mouse;
+    private final Thread       reader;
+    private final Thread       resizeWatcher;
+    private volatile int[]     size;
+    private final Thread       restoreHook;
+
+    private TerminalInput(String savedMode, boolean mouse) {
+        this.savedMode = savedMode;
+        this.mouse = mouse;
+        this.restoreHook = new Thread(() -> {
+            if (mouse) reportMouse(MOUSE_OFF);
+            stty(savedMode, ProcessBuilder.Redirect.INHERIT);
+        });
+        this.reader = new Thread(this::readLoop, "terminal-input");
+        this.reader.setDaemon(true);
+        this.resizeWatcher = new Thread(this::watchSize, "terminal-resize");
+        this.resizeWatcher.setDaemon(true);
+    }
+
+    /**
+     * Switches the terminal to raw input and starts the reader thread.
+     *
+     * @param mouse also turn on mouse reporting
+     * @return the input, or null if raw input is not available here
+     */
+    public static TerminalInput start(boolean mouse) {
+        if (System.getProperty("os.name", "").startsWith("Windows")) return null;
+        String saved = stty("-g", ProcessBuilder.Redirect.INHERIT);
+        // keep signals (Ctrl+C) and CR to NL translation; reads return after 0.1 s so the reader can stop
+        if (saved == null || stty("-icanon -echo min 0 time 1", ProcessBuilder.Redirect.INHERIT) == null) return null;
+
+        TerminalInput input = new TerminalInput(saved.trim(), mouse);
+        Runtime.getRuntime().addShutdownHook(input.restoreHook);
+        if (mouse) reportMouse(MOUSE_ON);
+        input.reader.start();
+        input.size = size();
+        if (input.size != null && Config.Display.RESIZE_POLL_MILLIS > 0) input.resizeWatcher.start();
+        return input;
+    }
+
+    /**
+     * Stops the reader thread and puts the terminal back in line mode.
+     */
+    public void stop() {
+        running = false;
+        resizeWatcher.interrupt();
+        if (mouse) reportMouse(MOUSE_OFF);
+        try {
+            reader.join(500);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+        stty(savedMode, ProcessBuilder.Redirect.INHERIT);
+        try {
+            Runtime.getRuntime().removeShutdownHook(restoreHook);
+        } catch (IllegalStateException _) {
+            // already shutting down, the hook restores the terminal anyway
+        }
+    }
+
+    /**
+     * The size of the controlling terminal, as {rows, columns}.
+     *
+     * @return null if there is no terminal, or it does not know its size
+     */
+    public static int[] size() {
+        String output = stty("size", ProcessBuilder.Redirect.from(new File("/dev/tty")));
+        if (output == null) return null;
+        String[] parts = output.trim().split("\\s+");
+        try {
+            int rows = Integer.parseInt(parts[0]), cols = Integer.parseInt(parts[1]);
+            return rows > 0 && cols > 0 ? new int[]{rows, cols} : null;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException _) {
+            return null;
+        }
+    }
+
+    /**
+     * The size of the terminal when it was last asked, as {rows, columns}.
+     *
+     * @return null if it does not know its size
+     */
+    public int[] lastSize() {
+        return size;
+    }
+
+    private static void reportMouse(String sequence) {
+        System.out.print(sequence);
+        System.out.flush();
+    }
+
+    /**
+     * Runs {@code stty} on the terminal {@code input} is: stdin ({@code INHERIT}) for the modes, the controlling terminal
+     * for the size, which the screen has whatever stdin is.
+     *
+     * @return its output, or null if it failed (not a terminal, no stty)
+     */
+    private static String stty(String arguments, ProcessBuilder.Redirect input) {
+        try {
+            Process process = new ProcessBuilder("sh", "-c", "stty " + arguments)
+                    .redirectInput(input)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes());
+            return process.waitFor() == 0 ? output : null;
+        } catch (IOException _) {
+            return null;
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void readLoop() {
+        InputStream in = System.in;
+        try {
+            while (running) {
+                int b = in.read();
+                if (b < 0) {
+                    // the 0.1 s read timeout expired
+                    decoder.idle();
+                    continue;
+                }
+                decoder.feed(b);
+                if (in.available() == 0) decoder.idle();
+            }
+        } catch (IOException _) {
+            running = false;
+        }
+    }
+
+    private void watchSize() {
+        while (running) {
+            try {
+                Thread.sleep(Config.Display.RESIZE_POLL_MILLIS);
+            } catch (InterruptedException _) {
+                return;
+            }
+            int[] now = size();
+            if (now != null && (now[0] != size[0] || now[1] != size[1])) {
+                size = now;
+                event(InputDecoder.event(InputDecoder.RESIZE, 0));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void event(int event) {
+        if (isMotion(event) && tail != head && isMotion(events[(tail - 1) & (CAPACITY - 1)])) {
+            // only the latest position of the mouse matters
+            events[(tail - 1) & (CAPACITY - 1)] = event;
+            arrivals[(tail - 1) & (CAPACITY - 1)] = System.nanoTime();
+            return;
+        }
+        // and only the latest size, which lastSize() tells
+        if (event == InputDecoder.event(InputDecoder.RESIZE, 0) && tail != head && events[(tail - 1) & (CAPACITY - 1)] == event) return;
+        if (tail - head == CAPACITY) return;   // the game is not keeping up, drop the newest input
+        arrivals[tail & (CAPACITY - 1)] = System.nanoTime();
+        events[tail++ & (CAPACITY - 1)] = event;
+        notifyAll();
+    }
+
+    private static boolean isMotion(int event) {
+        return InputDecoder.typeOf(event) == InputDecoder.MOUSE && InputDecoder.mouseAction(event) == InputDecoder.MOTION;
+    }
+
+    /**
+     * Waits for the next event.
+     */
+    public synchronized int take() throws InterruptedException {
+        while (head == tail) wait();
+        takenArrival = arrivals[head & (CAPACITY - 1)];
+        return events[head++ & (CAPACITY - 1)];
+    }
+
+    /**
+     * Waits for the next event, {@code timeoutMillis} at most.
+     *
+     * @return the event, or 0 if none came in time
+     */
+    public synchronized int take(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        while (head == tail) {
+            long remaining = (deadline - System.nanoTime()) / 1_000_000;
+            if (remaining <= 0) return 0;
+            wait(remaining);
+        }
+        return take();
+    }
+
+    /**
+     * When the event last taken arrived, in {@link System#nanoTime()}: the start of the time the game took to answer it.
+     */
+    public synchronized long takenArrival() {
+        return takenArrival;
+    }
+
+    /**
+     * Waits until Enter is pressed, dropping every other event.
+     */
+    public void awaitEnter() throws InterruptedException {
+        while (take() != InputDecoder.event(InputDecoder.CHAR, '\n')) {
+            // keep waiting
+        }
+    }
+}
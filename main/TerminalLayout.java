@@ -0,0 +1,93 @@
+/**
+ * How much of the terminal the game screen needs, and what a change of the terminal's size does to it.
+ * <p>
+ * The screen is laid out from the top left corner ({@link Config.MineSweeper.Coordinates}), so a part never moves
+ * when the terminal is resized: a terminal shows it whole, or cuts it at its right or bottom edge. Growing or
+ * shrinking a terminal that shows the whole screen loses nothing, only a size too small for it does
+ * ({@link #damaged}). Text parts are as wide as their widest line, measured by drawing it.
+ */
+public final class TerminalLayout {
+    private static final int MEASURE_COLS = 512;
+
+    private final int rows, cols;   // what the whole screen needs
+
+    private TerminalLayout(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * The game screen of a board of {@code width} by {@code height} cells.
+     */
+    public static TerminalLayout of(String level, int width, int height) {
+        int[][] corners = {
+                text(AppTexts.MinesSweeper.GAME_TITLE,
+                        Config.MineSweeper.Coordinates.GAME_TITLE_ROW, Config.MineSweeper.Coordinates.GAME_TITLE_COL),
+                text(String.format(AppTexts.MinesSweeper.LEVEL_INFO_FORMAT_FORMAT, level) + '\n'
+                                + String.format(AppTexts.MinesSweeper.TIME_FORMAT, 99, 59, 59) + '\n'
+                                + String.format(AppTexts.MinesSweeper.MINES_LEFT_FORMAT, width * height),
+                        Config.MineSweeper.Coordinates.LEVEL_INFO_ROW, Config.MineSweeper.Coordinates.LEVEL_INFO_COL),
+                text(String.format(AppTexts.MinesSweeper.GENERATION_INFO_FORMAT, width * height, 999_999_999L, 9_999_999.0),
+                        Config.MineSweeper.Coordinates.GENERATION_INFO_ROW, Config.MineSweeper.Coordinates.GENERATION_INFO_COL),
+                text(AppTexts.MinesSweeper.KEY_PROMPT, Config.MineSweeper.Coordinates.getInputRow, Config.MineSweeper.Coordinates.getInputCol),
+                text(AppTexts.MinesSweeper.INPUT_PROMPT, Config.MineSweeper.Coordinates.getInputRow, Config.MineSweeper.Coordinates.getInputCol),
+                {Config.MineSweeper.Coordinates.errorLineRow, 1},
+                // the border around the cells
+                {Config.MineSweeper.Coordinates.border_topLeftCorner_row + height + 1,
+                        Config.MineSweeper.Coordinates.box_topLeftCorner_col + width * Config.MineSweeper.CELL_CHARACTER_SIZE + 1},
+        };
+        int rows = 0, cols = 0;
+        for (int[] corner : corners) {
+            rows = Math.max(rows, corner[0]);
+            cols = Math.max(cols, corner[1]);
+        }
+        return new TerminalLayout(rows, cols);
+    }
+
+    /**
+     * The bottom right corner of {@code text} drawn from {@code row}, {@code col}, as {row, col}.
+     */
+    private static int[] text(String text, int row, int col) {
+        VirtualScreen scratch = new VirtualScreen(Utils.getLinesCount(text) + 1, MEASURE_COLS);
+        scratch.printStream().print(text);
+        int bottom = 0, right = 0;
+        for (int line = 1; line <= scratch.rows(); line++) {
+            for (int c = MEASURE_COLS; c > 0; c--) {
+                if (scratch.charAt(line, c) != ' ') {
+                    bottom = line;
+                    right = Math.max(right, c);
+                    break;
+                }
+            }
+        }
+        return new int[] {row + Math.max(bottom, 1) - 1, col + Math.max(right, 1) - 1};
+    }
+
+    /**
+     * Rows the whole screen needs.
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Columns the whole screen needs.
+     */
+    public int cols() {
+        return cols;
+    }
+
+    public boolean fitsIn(int rows, int cols) {
+        return rows >= this.rows && cols >= this.cols;
+    }
+
+    /**
+     * Whether the terminal lost some of the screen at {@code oldRows} by {@code oldCols}, so that all of it must be
+     * drawn again at a new size: nothing is lost if the old size showed the whole screen. Otherwise lines cut at the
+     * right edge wrapped onto the rows below, over any part, positions past the edges were drawn on the edges and a
+     * line past the bottom scrolled the screen, so no part can be told intact.
+     */
+    public boolean damaged(int oldRows, int oldCols) {
+        return !fitsIn(oldRows, oldCols);
+    }
+}
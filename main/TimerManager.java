@@ -17,11 +17,22 @@ public class TimerManager{
     }
 
     public void    startTimer(){
+        startTimer(0);
+    }
+
+    /**
+     * Starts the timer as if it had already been running for {@code elapsedMillis}, used when a suspended game is resumed.
+     */
+    public void    startTimer(long elapsedMillis){
         this.timerOn = true;
-        this.startTime = System.currentTimeMillis();
+        this.startTime = System.currentTimeMillis() - elapsedMillis;
         new Thread(this::timeUpdater).start();
     }
 
+    public long    elapsedMillis(){
+        return timerOn ? System.currentTimeMillis() - this.startTime : 0;
+    }
+
     public double  stopTimer() {
         if (!timerOn) return 0.0;
         this.timerOn = false;
@@ -0,0 +1,141 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Per-level distributions of solve times (won games) and think times (delay before every move), in milliseconds.
+ * <p>
+ * Values recorded in this session are kept apart until {@link #save()}, which re-reads the file under a lock,
+ * merges them in and atomically replaces it. So several sessions, or processes, can add to the same file
+ * without losing each other's games. Values may be recorded from a {@link GameEventBus} thread while the game thread saves.
+ */
+public class TimingHistograms {
+    private static final int MAGIC   = 0x4D535448;   // "MSTH"
+    private static final int VERSION = 1;
+    private static final int LEVELS  = MinesSweeper.Level.values().length;
+
+    private final Path           path;
+    private final LogHistogram[] solve   = newHistograms();   // saved and pending values
+    private final LogHistogram[] think   = newHistograms();
+    private final LogHistogram[] pendingSolve = newHistograms();
+    private final LogHistogram[] pendingThink = newHistograms();
+
+    private TimingHistograms(Path path) {
+        this.path = path;
+    }
+
+    private static LogHistogram[] newHistograms() {
+        LogHistogram[] histograms = new LogHistogram[LEVELS];
+        for (int i = 0; i < LEVELS; i++) histograms[i] = new LogHistogram();
+        return histograms;
+    }
+
+    public static TimingHistograms open(Path path) {
+        TimingHistograms histograms = new TimingHistograms(path);
+        try {
+            readInto(path, histograms.solve, histograms.think);
+        } catch (IOException _) {
+            for (int i = 0; i < LEVELS; i++) {
+                histograms.solve[i].clear();
+                histograms.think[i].clear();
+            }
+        }
+        return histograms;
+    }
+
+    private static void readInto(Path path, LogHistogram[] solve, LogHistogram[] think) throws IOException {
+        if (!Files.exists(path)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Not a timing histograms file: " + path);
+            int levels = in.readInt();
+            for (int i = 0; i < levels; i++) {
+                LogHistogram solveTimes = i < LEVELS ? solve[i] : new LogHistogram();
+                LogHistogram thinkTimes = i < LEVELS ? think[i] : new LogHistogram();
+                solveTimes.mergeFrom(in);
+                thinkTimes.mergeFrom(in);
+            }
+        }
+    }
+
+    public synchronized void recordSolve(MinesSweeper.Level level, long millis) {
+        solve[level.ordinal()].record(millis);
+        pendingSolve[level.ordinal()].record(millis);
+    }
+
+    public synchronized void recordThink(MinesSweeper.Level level, long millis) {
+        think[level.ordinal()].record(millis);
+        pendingThink[level.ordinal()].record(millis);
+    }
+
+    /**
+     * A copy of the solve times of {@code level}, which later records do not change.
+     */
+    public synchronized LogHistogram solveTimes(MinesSweeper.Level level) {
+        LogHistogram copy = new LogHistogram();
+        copy.merge(solve[level.ordinal()]);
+        return copy;
+    }
+
+    /**
+     * A copy of the think times of {@code level}, which later records do not change.
+     */
+    public synchronized LogHistogram thinkTimes(MinesSweeper.Level level) {
+        LogHistogram copy = new LogHistogram();
+        copy.merge(think[level.ordinal()]);
+        return copy;
+    }
+
+    /**
+     * Merges the values recorded since the last save into the file. On failure they stay pending for the next save.
+     */
+    public synchronized void save() {
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Path lockPath = path.resolveSibling(path.getFileName() + ".lock");
+            try (FileChannel lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock _ = lockChannel.lock()) {
+                LogHistogram[] mergedSolve = newHistograms();
+                LogHistogram[] mergedThink = newHistograms();
+                readInto(path, mergedSolve, mergedThink);
+
+                Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+                try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(LEVELS);
+                    for (int i = 0; i < LEVELS; i++) {
+                        mergedSolve[i].merge(pendingSolve[i]);
+                        mergedThink[i].merge(pendingThink[i]);
+                        mergedSolve[i].write(out);
+                        mergedThink[i].write(out);
+                    }
+                    out.flush();
+                    file.getFD().sync();
+                }
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                // other processes may have saved too, the file is now the most complete view
+                for (int i = 0; i < LEVELS; i++) {
+                    solve[i].clear();
+                    solve[i].merge(mergedSolve[i]);
+                    think[i].clear();
+                    think[i].merge(mergedThink[i]);
+                    pendingSolve[i].clear();
+                    pendingThink[i].clear();
+                }
+            }
+        } catch (IOException _) {
+            // keep the pending values for the next save
+        }
+    }
+}
@@ -62,9 +62,28 @@ public final class Utils {
      * @return true if the string represents an integer within the range, false otherwise
      */
     public static boolean isInRange(String str, int min, int max){
-        if (!str.matches("^\\d+$")) return false;
+        int num = parseUnsigned(str);
+        if (num < 0) return false;
 
-        return isInRange(Integer.parseInt(str), min, max);
+        return isInRange(num, min, max);
+    }
+
+    /**
+     * Parses a string made only of decimal digits, without compiling a regular expression.
+     * Values too large for an int are saturated to {@code Integer.MAX_VALUE}.
+     *
+     * @param str the string to parse
+     * @return the parsed number, or -1 if the string is empty or contains anything but digits
+     */
+    public static int     parseUnsigned(CharSequence str){
+        if (str.isEmpty()) return -1;
+        long value = 0;
+        for (int i = 0; i < str.length(); i++){
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = Math.min(Integer.MAX_VALUE, value * 10 + (c - '0'));
+        }
+        return (int) value;
     }
 
     /**
@@ -94,7 +113,7 @@ public final class Utils {
      * @return the parsed number adjusted to the range [min, max]
      */
     public static int     forceInRange(String num, int min, int max){
-        return forceInRange(Integer.parseInt(num), min, max);
+        return forceInRange(parseUnsigned(num), min, max);
     }
 
 
@@ -160,25 +179,35 @@ public final class Utils {
      * @param sleepTimeMillis the total time in milliseconds to pause between printing each character
      */
     public static void slowPrintMultiLine(String s, String color, int topLeftCorner_row, int topLeftCorner_col, int sleepTimeMillis){
+        slowPrintMultiLineClip(s, color, topLeftCorner_row, topLeftCorner_col, sleepTimeMillis).play();
+    }
+
+    /**
+     * Compiles {@link #slowPrintMultiLine} into a clip, a column of characters per frame, for texts that are shown again.
+     */
+    public static AnimationClip slowPrintMultiLineClip(String s, String color, int topLeftCorner_row, int topLeftCorner_col, int sleepTimeMillis){
         String[] lines = s.split("\n");
-        int maxLength = Integer.MIN_VALUE;
+        int maxLength = 0;
         for (String line : lines) {
             maxLength = Math.max(maxLength, line.length());
         }
 
-        System.out.print(color);
+        AnimationClip.Builder clip = new AnimationClip.Builder();
+        StringBuilder frame = new StringBuilder(color);
         for (int i = 0; i < maxLength; i++) {
             for (int line_index = 0; line_index < lines.length; line_index++) {
                 String line = lines[line_index];
                 if (i < line.length()) {
-                    moveCursorTo(topLeftCorner_row + line_index, topLeftCorner_col + i);
-                    System.out.print(line.charAt(i));
+                    appendCursorTo(frame, topLeftCorner_row + line_index, topLeftCorner_col + i);
+                    frame.append(line.charAt(i));
                 }
             }
-            sleep(sleepTimeMillis/maxLength);
-
+            if (i == maxLength - 1) frame.append(AppTexts.Colors.RESET_COLOR);
+            clip.frame(frame, sleepTimeMillis/maxLength);
+            frame.setLength(0);
         }
-        System.out.print(AppTexts.Colors.RESET_COLOR);
+        if (maxLength == 0) clip.frame(frame.append(AppTexts.Colors.RESET_COLOR), 0);
+        return clip.build();
     }
 
 
@@ -193,6 +222,30 @@ public final class Utils {
      * @param bombCoordinates Coordinates of the explosion origin (relative to the display area)
      */
     public static void explosion(int rows,int cols, int topLeft_row, int topLeft_col, int[]bombCoordinates) {
+        List<List<String>> frames = explosionFrames(rows, cols, bombCoordinates);
+
+        // the first frame stays for half a second, the next ones for 20 ms
+        FramePacer pacer = new FramePacer();
+        StringBuilder frame = new StringBuilder();
+        for (int i = 0; i < frames.size(); i++) {
+            frame.setLength(0);
+            List<String> strings = frames.get(i);
+            for (int line = 0; line < strings.size(); line++) {
+                appendCursorTo(frame, topLeft_row + line, topLeft_col);
+                frame.append(strings.get(line));
+            }
+            long nextDue = 500 + 20L * i;
+            pacer.show(frame, nextDue, i == frames.size() - 1);
+            pacer.sleepUntil(nextDue);
+        }
+        sleep(500);
+
+    }
+
+    /**
+     * Generates the frames of the {@link #explosion} animation, one string per line, until a frame is empty.
+     */
+    static List<List<String>> explosionFrames(int rows, int cols, int[] bombCoordinates) {
         class SpaceBlob {
             final double x, y, z;
 
@@ -302,19 +355,7 @@ public final class Utils {
             }
 
         }
-
-        double delay = 0.5;
-        // printing the animation
-        for (List<String> strings : frames) {
-            for (int line = 0; line < strings.size(); line++) {
-                System.out.printf("\033[%d;%dH", topLeft_row + line, topLeft_col);
-                System.out.print(strings.get(line));
-            }
-            sleep((long) (delay * 1000L));
-            delay = 0.02;
-        }
-        sleep(500);
-
+        return frames;
     }
 
     /**
@@ -326,25 +367,31 @@ public final class Utils {
      * @param totalSleepTimeMiles total duration of the animation in milliseconds
      */
     public static void loadingAnimation(int topLeftCorner_row, int topLeftCorner_col,int width, long totalSleepTimeMiles) {
-        saveCursorPosition();
+        AnimationClip.Key key = AnimationClip.Key.of("loading " + topLeftCorner_row + "," + topLeftCorner_col + " " + width + " " + totalSleepTimeMiles);
+        AnimationClipCache.shared().get(key, () -> loadingAnimationClip(topLeftCorner_row, topLeftCorner_col, width, totalSleepTimeMiles)).play();
+    }
+
+    private static AnimationClip loadingAnimationClip(int topLeftCorner_row, int topLeftCorner_col,int width, long totalSleepTimeMiles) {
+        AnimationClip.Builder clip = new AnimationClip.Builder();
+        StringBuilder frame = new StringBuilder(SAVE_CURSOR);
         int totalSteps = 100;  // Total steps to completion
 
-        moveCursorTo(topLeftCorner_row, topLeftCorner_col);
-        System.out.print(AppTexts.Utils.loadingAnimation.TOP_LEFT_CORNER);
-        System.out.print(AppTexts.Utils.loadingAnimation.HORIZONTAL_BORDER.repeat(width));
-        System.out.print(AppTexts.Utils.loadingAnimation.TOP_RIGHT_CORNER);
+        appendCursorTo(frame, topLeftCorner_row, topLeftCorner_col);
+        frame.append(AppTexts.Utils.loadingAnimation.TOP_LEFT_CORNER);
+        frame.append(AppTexts.Utils.loadingAnimation.HORIZONTAL_BORDER.repeat(width));
+        frame.append(AppTexts.Utils.loadingAnimation.TOP_RIGHT_CORNER);
 
 
-        moveCursorTo(topLeftCorner_row+2, topLeftCorner_col);
-        System.out.print(AppTexts.Utils.loadingAnimation.BOTTOM_LEFT_CORNER);
-        System.out.print(AppTexts.Utils.loadingAnimation.HORIZONTAL_BORDER.repeat(width));
-        System.out.print(AppTexts.Utils.loadingAnimation.BOTTOM_RIGHT_CORNER);
+        appendCursorTo(frame, topLeftCorner_row+2, topLeftCorner_col);
+        frame.append(AppTexts.Utils.loadingAnimation.BOTTOM_LEFT_CORNER);
+        frame.append(AppTexts.Utils.loadingAnimation.HORIZONTAL_BORDER.repeat(width));
+        frame.append(AppTexts.Utils.loadingAnimation.BOTTOM_RIGHT_CORNER);
 
 
-        moveCursorTo(topLeftCorner_row+1, topLeftCorner_col);
-        System.out.print(AppTexts.Utils.loadingAnimation.VERTICAL_BORDER);  // Left border
-        moveCursorTo(topLeftCorner_row+1, topLeftCorner_col+width+1);
-        System.out.print(AppTexts.Utils.loadingAnimation.VERTICAL_BORDER);  // Right border
+        appendCursorTo(frame, topLeftCorner_row+1, topLeftCorner_col);
+        frame.append(AppTexts.Utils.loadingAnimation.VERTICAL_BORDER);  // Left border
+        appendCursorTo(frame, topLeftCorner_row+1, topLeftCorner_col+width+1);
+        frame.append(AppTexts.Utils.loadingAnimation.VERTICAL_BORDER);  // Right border
 
         int lastProgress = 0;
         for (int i = 0; i <= totalSteps; i++) {
@@ -352,19 +399,38 @@ public final class Utils {
             int progress = i * width / totalSteps;
 
             // Print the loading bar
-            moveCursorTo(topLeftCorner_row+1, topLeftCorner_col+1+lastProgress);
-            System.out.print(AppTexts.Utils.loadingAnimation.PROGRESS.repeat(progress-lastProgress));  // Filled portion
+            appendCursorTo(frame, topLeftCorner_row+1, topLeftCorner_col+1+lastProgress);
+            frame.append(AppTexts.Utils.loadingAnimation.PROGRESS.repeat(progress-lastProgress));  // Filled portion
+            lastProgress = progress;
 
-            moveCursorTo(topLeftCorner_row+1, topLeftCorner_col+width+3);
-            System.out.print((int)((double) i/totalSteps*100) + AppTexts.Utils.loadingAnimation.PERCENT);  // Right border and percentage
+            appendCursorTo(frame, topLeftCorner_row+1, topLeftCorner_col+width+3);
+            frame.append((int)((double) i/totalSteps*100)).append(AppTexts.Utils.loadingAnimation.PERCENT);  // Right border and percentage
 
-            sleep(totalSleepTimeMiles/totalSteps);  // Pause for visual effect
+            clip.frame(frame, totalSleepTimeMiles/totalSteps);  // Pause for visual effect
+            frame.setLength(0);
         }
-        restoreCursor();
+        clip.frame(RESTORE_CURSOR, 0);
+        return clip.build();
     }
 
 
     // ======== ANSI CODE UTILITIES SECTION ========
+    public static final String SAVE_CURSOR       = "\033[s";
+    public static final String RESTORE_CURSOR    = "\033[u";
+    public static final String CLEAR_LINE_TO_END = "\033[0K";
+    public static final String CLEAR_TO_END      = "\033[0J";
+
+    /**
+     * Appends the ANSI sequence moving the cursor to the given position, for output assembled into one frame.
+     *
+     * @param frame the buffer to append to
+     * @param row the row number (starting from 1)
+     * @param col the column number (starting from 1)
+     */
+    public static void appendCursorTo(StringBuilder frame, int row, int col){
+        frame.append("\033[").append(row).append(';').append(col).append('H');
+    }
+
     /**
      * Erases part or all of the current line in the terminal using ANSI escape codes.
      * Modes:
@@ -0,0 +1,656 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An in-memory VT100/xterm screen: the bytes written to it are interpreted the way a terminal would, so the result
+ * of any output can be inspected cell by cell, and its cost counted in bytes, escape sequences and flushes.
+ * <p>
+ * It covers what the game emits: UTF-8 text with auto-wrap and scrolling, CR, LF (which also returns the carriage, as
+ * the terminal driver's output processing does), BS and TAB; cursor position and movement (CUP, CUU, CUD, CUF, CUB,
+ * CHA, VPA), erase in line and display (EL, ED), cursor save and restore ({@code CSI s}/{@code u} and
+ * {@code ESC 7}/{@code 8}), SGR with bold, reverse, 8/16/256 colors and truecolor, the cursor visibility and
+ * alternate screen private modes, and OSC window titles. Other sequences are parsed and ignored.
+ * <p>
+ * Rows and columns are 1-based, as in the escape sequences. Colors are {@code 0xRRGGBB}, or {@link #DEFAULT_COLOR}.
+ */
+public class VirtualScreen extends OutputStream {
+    public static final int DEFAULT_COLOR = -1;
+
+    // cell attributes
+    public static final int BOLD    = 1;
+    public static final int REVERSE = 2;
+
+    private static final int WIDE_TAIL = -1;   // second column of a double-width character
+
+    private enum State { GROUND, ESCAPE, CSI, OSC, OSC_ESCAPE }
+
+    /**
+     * One of the two screen buffers: the cells and their colors.
+     */
+    private static final class Buffer {
+        final int[]  chars;
+        final int[]  foreground;
+        final int[]  background;
+        final byte[] attributes;
+
+        Buffer(int cells) {
+            chars = new int[cells];
+            foreground = new int[cells];
+            background = new int[cells];
+            attributes = new byte[cells];
+        }
+    }
+
+    private final int    rows, cols;
+    private final Buffer main, alternate;
+    private Buffer       buffer;
+
+    // cursor and pen
+    private int     row = 1, col = 1;
+    private boolean wrapPending;      // the last column was just written, the next character goes to the next line
+    private int     penForeground = DEFAULT_COLOR, penBackground = DEFAULT_COLOR;
+    private int     penAttributes;
+    private int     savedRow = 1, savedCol = 1, savedForeground = DEFAULT_COLOR, savedBackground = DEFAULT_COLOR, savedAttributes;
+    private boolean cursorVisible = true;
+    private String  title = "";
+
+    // parser
+    private State               state = State.GROUND;
+    private final int[]         parameters = new int[16];
+    private int                 parameterCount;
+    private boolean             parameterStarted;
+    private int                 privateMarker;
+    private int                 intermediate;
+    private final StringBuilder osc = new StringBuilder();
+    private int                 utf8CodePoint, utf8Remaining;
+
+    // costs
+    private long bytes, escapeSequences, flushes, printed;
+
+    public VirtualScreen(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.main = new Buffer(rows * cols);
+        this.alternate = new Buffer(rows * cols);
+        this.buffer = main;
+        clear(main, 0, rows * cols);
+        clear(alternate, 0, rows * cols);
+    }
+
+    /**
+     * A print stream writing into this screen, flushed like {@code System.out}.
+     */
+    public PrintStream printStream() {
+        return new PrintStream(this, true, StandardCharsets.UTF_8);
+    }
+
+    // ────── Output ──────
+
+    @Override
+    public synchronized void write(int b) {
+        bytes++;
+        feed(b & 0xFF);
+    }
+
+    @Override
+    public synchronized void write(byte[] data, int offset, int length) {
+        bytes += length;
+        for (int i = offset; i < offset + length; i++) feed(data[i] & 0xFF);
+    }
+
+    @Override
+    public synchronized void flush() {
+        flushes++;
+    }
+
+    private void feed(int b) {
+        switch (state) {
+            case GROUND     -> ground(b);
+            case ESCAPE     -> escape(b);
+            case CSI        -> csi(b);
+            case OSC        -> {
+                if (b == 0x07) endOsc();
+                else if (b == 0x1B) state = State.OSC_ESCAPE;
+                else osc.append((char) b);
+            }
+            case OSC_ESCAPE -> {
+                // ESC \ ends the string, anything else aborts it
+                if (b == '\\') endOsc();
+                else {
+                    state = State.GROUND;
+                    feed(b);
+                }
+            }
+        }
+    }
+
+    private void ground(int b) {
+        if (utf8Remaining > 0) {
+            if ((b & 0xC0) == 0x80) {
+                utf8CodePoint = utf8CodePoint << 6 | (b & 0x3F);
+                if (--utf8Remaining == 0) print(utf8CodePoint);
+                return;
+            }
+            utf8Remaining = 0;
+            print(0xFFFD);
+        }
+        if (b >= 0xF0)      { utf8CodePoint = b & 0x07; utf8Remaining = 3; }
+        else if (b >= 0xE0) { utf8CodePoint = b & 0x0F; utf8Remaining = 2; }
+        else if (b >= 0xC0) { utf8CodePoint = b & 0x1F; utf8Remaining = 1; }
+        else if (b >= 0x80) print(0xFFFD);
+        else if (b >= 0x20 && b != 0x7F) print(b);
+        else control(b);
+    }
+
+    private void control(int b) {
+        switch (b) {
+            case 0x1B -> {
+                state = State.ESCAPE;
+                return;
+            }
+            case '\n', 0x0B, 0x0C -> {
+                lineFeed();
+                col = 1;
+            }
+            case '\r' -> col = 1;
+            case '\b' -> col = Math.max(1, col - 1);
+            case '\t' -> col = Math.min(cols, (col - 1) / 8 * 8 + 9);
+            default   -> { }   // BEL and the rest
+        }
+        wrapPending = false;
+    }
+
+    private void escape(int b) {
+        state = State.GROUND;
+        switch (b) {
+            case '[' -> {
+                state = State.CSI;
+                parameterCount = 0;
+                parameterStarted = false;
+                privateMarker = 0;
+                intermediate = 0;
+                Arrays.fill(parameters, 0);
+            }
+            case ']' -> {
+                state = State.OSC;
+                osc.setLength(0);
+            }
+            case '7' -> saveCursor();
+            case '8' -> restoreCursor();
+            default  -> { }
+        }
+        if (state == State.GROUND) escapeSequences++;
+    }
+
+    private void csi(int b) {
+        if (b >= '0' && b <= '9') {
+            if (parameterCount < parameters.length) {
+                parameters[parameterCount] = Math.min(parameters[parameterCount] * 10 + (b - '0'), 0xFFFF);
+            }
+            parameterStarted = true;
+        } else if (b == ';' || b == ':') {
+            parameterCount++;
+            parameterStarted = false;
+        } else if (b >= '<' && b <= '?') {
+            privateMarker = b;
+        } else if (b >= 0x20 && b <= 0x2F) {
+            intermediate = b;
+        } else if (b >= 0x40 && b <= 0x7E) {
+            if (parameterStarted || parameterCount > 0) parameterCount++;
+            parameterCount = Math.min(parameterCount, parameters.length);
+            state = State.GROUND;
+            escapeSequences++;
+            if (intermediate == 0) dispatch(b);
+        } else {
+            // a control character inside a sequence is executed, as by a terminal
+            control(b);
+            if (b == 0x1B) return;
+            state = State.CSI;
+        }
+    }
+
+    private void endOsc() {
+        state = State.GROUND;
+        escapeSequences++;
+        // window title: OSC 0 or 2 ; text
+        int separator = osc.indexOf(";");
+        if (separator > 0) {
+            String command = osc.substring(0, separator);
+            if (command.equals("0") || command.equals("2")) {
+                title = new String(osc.substring(separator + 1).getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private int parameter(int index, int defaultValue) {
+        return index < parameterCount && parameters[index] != 0 ? parameters[index] : defaultValue;
+    }
+
+    private void dispatch(int command) {
+        if (privateMarker == '?') {
+            if (command == 'h' || command == 'l') {
+                for (int i = 0; i < Math.max(parameterCount, 1); i++) privateMode(parameters[i], command == 'h');
+            }
+            return;
+        }
+        if (privateMarker != 0) return;
+
+        wrapPending = false;
+        switch (command) {
+            case 'H', 'f' -> moveTo(parameter(0, 1), parameter(1, 1));
+            case 'A'      -> moveTo(row - parameter(0, 1), col);
+            case 'B'      -> moveTo(row + parameter(0, 1), col);
+            case 'C'      -> moveTo(row, col + parameter(0, 1));
+            case 'D'      -> moveTo(row, col - parameter(0, 1));
+            case 'E'      -> moveTo(row + parameter(0, 1), 1);
+            case 'F'      -> moveTo(row - parameter(0, 1), 1);
+            case 'G'      -> moveTo(row, parameter(0, 1));
+            case 'd'      -> moveTo(parameter(0, 1), col);
+            case 'J'      -> eraseInDisplay(parameter(0, 0));
+            case 'K'      -> eraseInLine(parameter(0, 0));
+            case 'm'      -> selectGraphicRendition();
+            case 's'      -> saveCursor();
+            case 'u'      -> restoreCursor();
+            default       -> { }
+        }
+    }
+
+    private void privateMode(int mode, boolean set) {
+        switch (mode) {
+            case 25 -> cursorVisible = set;
+            case 1049 -> {
+                if (set && buffer == main) {
+                    saveCursor();
+                    buffer = alternate;
+                    clear(alternate, 0, rows * cols);
+                } else if (!set && buffer == alternate) {
+                    buffer = main;
+                    restoreCursor();
+                }
+            }
+            case 47, 1047 -> buffer = set ? alternate : main;
+            default -> { }   // mouse reporting and the rest do not change the screen
+        }
+    }
+
+    private void selectGraphicRendition() {
+        if (parameterCount == 0) {
+            resetPen();
+            return;
+        }
+        for (int i = 0; i < parameterCount; i++) {
+            int p = parameters[i];
+            if (p == 0) resetPen();
+            else if (p == 1) penAttributes |= BOLD;
+            else if (p == 22) penAttributes &= ~BOLD;
+            else if (p == 7) penAttributes |= REVERSE;
+            else if (p == 27) penAttributes &= ~REVERSE;
+            else if (p >= 30 && p <= 37) penForeground = ansiColor(p - 30);
+            else if (p >= 90 && p <= 97) penForeground = ansiColor(p - 90 + 8);
+            else if (p >= 40 && p <= 47) penBackground = ansiColor(p - 40);
+            else if (p >= 100 && p <= 107) penBackground = ansiColor(p - 100 + 8);
+            else if (p == 39) penForeground = DEFAULT_COLOR;
+            else if (p == 49) penBackground = DEFAULT_COLOR;
+            else if (p == 38 || p == 48) {
+                int color;
+                if (i + 4 < parameterCount && parameters[i + 1] == 2) {
+                    color = (parameters[i + 2] & 0xFF) << 16 | (parameters[i + 3] & 0xFF) << 8 | (parameters[i + 4] & 0xFF);
+                    i += 4;
+                } else if (i + 2 < parameterCount && parameters[i + 1] == 5) {
+                    color = xtermColor(parameters[i + 2] & 0xFF);
+                    i += 2;
+                } else {
+                    break;
+                }
+                if (p == 38) penForeground = color;
+                else penBackground = color;
+            }
+        }
+    }
+
+    private void resetPen() {
+        penForeground = DEFAULT_COLOR;
+        penBackground = DEFAULT_COLOR;
+        penAttributes = 0;
+    }
+
+    /**
+     * The xterm default for the 16 basic colors.
+     */
+    private static int ansiColor(int index) {
+        return switch (index) {
+            case 0  -> 0x000000; case 1  -> 0xCD0000; case 2  -> 0x00CD00; case 3  -> 0xCDCD00;
+            case 4  -> 0x0000EE; case 5  -> 0xCD00CD; case 6  -> 0x00CDCD; case 7  -> 0xE5E5E5;
+            case 8  -> 0x7F7F7F; case 9  -> 0xFF0000; case 10 -> 0x00FF00; case 11 -> 0xFFFF00;
+            case 12 -> 0x5C5CFF; case 13 -> 0xFF00FF; case 14 -> 0x00FFFF; default -> 0xFFFFFF;
+        };
+    }
+
+    /**
+     * The xterm 256-color palette: 16 basic colors, a 6x6x6 cube and 24 grays.
+     */
+    static int xtermColor(int index) {
+        if (index < 16) return ansiColor(index);
+        if (index < 232) {
+            int cube = index - 16;
+            int r = cube / 36, g = cube / 6 % 6, b = cube % 6;
+            return cubeLevel(r) << 16 | cubeLevel(g) << 8 | cubeLevel(b);
+        }
+        int gray = 8 + (index - 232) * 10;
+        return gray << 16 | gray << 8 | gray;
+    }
+
+    private static int cubeLevel(int level) {
+        return level == 0 ? 0 : 55 + level * 40;
+    }
+
+    private void saveCursor() {
+        savedRow = row;
+        savedCol = col;
+        savedForeground = penForeground;
+        savedBackground = penBackground;
+        savedAttributes = penAttributes;
+    }
+
+    private void restoreCursor() {
+        row = savedRow;
+        col = savedCol;
+        penForeground = savedForeground;
+        penBackground = savedBackground;
+        penAttributes = savedAttributes;
+        wrapPending = false;
+    }
+
+    private void moveTo(int newRow, int newCol) {
+        row = Math.clamp(newRow, 1, rows);
+        col = Math.clamp(newCol, 1, cols);
+        wrapPending = false;
+    }
+
+    // ────── Drawing ──────
+
+    private void print(int codePoint) {
+        int width = width(codePoint);
+        if (wrapPending || col + width - 1 > cols) {
+            col = 1;
+            lineFeed();
+        }
+        int cell = (row - 1) * cols + col - 1;
+        put(cell, codePoint);
+        if (width == 2) put(cell + 1, WIDE_TAIL);
+        printed++;
+
+        if (col + width - 1 >= cols) {
+            col = cols;
+            wrapPending = true;
+        } else {
+            col += width;
+            wrapPending = false;
+        }
+    }
+
+    private void put(int cell, int codePoint) {
+        buffer.chars[cell] = codePoint;
+        buffer.foreground[cell] = penForeground;
+        buffer.background[cell] = penBackground;
+        buffer.attributes[cell] = (byte) penAttributes;
+    }
+
+    private void lineFeed() {
+        if (row < rows) {
+            row++;
+            return;
+        }
+        // scroll the whole screen up by one line
+        int shift = cols, cells = rows * cols;
+        System.arraycopy(buffer.chars, shift, buffer.chars, 0, cells - shift);
+        System.arraycopy(buffer.foreground, shift, buffer.foreground, 0, cells - shift);
+        System.arraycopy(buffer.background, shift, buffer.background, 0, cells - shift);
+        System.arraycopy(buffer.attributes, shift, buffer.attributes, 0, cells - shift);
+        clear(buffer, cells - shift, cells);
+    }
+
+    private void eraseInLine(int mode) {
+        int start = (row - 1) * cols;
+        switch (mode) {
+            case 0  -> erase(start + col - 1, start + cols);
+            case 1  -> erase(start, start + col);
+            default -> erase(start, start + cols);
+        }
+    }
+
+    private void eraseInDisplay(int mode) {
+        int cursor = (row - 1) * cols + col - 1;
+        switch (mode) {
+            case 0  -> erase(cursor, rows * cols);
+            case 1  -> erase(0, cursor + 1);
+            default -> erase(0, rows * cols);   // 2, and 3 (no scrollback here)
+        }
+    }
+
+    /**
+     * Erases cells to blanks with the current background, as terminals with back color erase do.
+     */
+    private void erase(int from, int to) {
+        Arrays.fill(buffer.chars, from, to, ' ');
+        Arrays.fill(buffer.foreground, from, to, DEFAULT_COLOR);
+        Arrays.fill(buffer.background, from, to, penBackground);
+        Arrays.fill(buffer.attributes, from, to, (byte) 0);
+    }
+
+    private static void clear(Buffer buffer, int from, int to) {
+        Arrays.fill(buffer.chars, from, to, ' ');
+        Arrays.fill(buffer.foreground, from, to, DEFAULT_COLOR);
+        Arrays.fill(buffer.background, from, to, DEFAULT_COLOR);
+        Arrays.fill(buffer.attributes, from, to, (byte) 0);
+    }
+
+    /**
+     * Columns taken by a character: 2 for East Asian wide characters and emoji, 1 otherwise.
+     */
+    static int width(int codePoint) {
+        if (codePoint < 0x1100) return 1;
+        if ((codePoint <= 0x115F)
+                || (codePoint >= 0x2E80 && codePoint <= 0xA4CF && codePoint != 0x303F)
+                || (codePoint >= 0xAC00 && codePoint <= 0xD7A3)
+                || (codePoint >= 0xF900 && codePoint <= 0xFAFF)
+                || (codePoint >= 0xFE30 && codePoint <= 0xFE4F)
+                || (codePoint >= 0xFF00 && codePoint <= 0xFF60)
+                || (codePoint >= 0xFFE0 && codePoint <= 0xFFE6)
+                || (codePoint >= 0x1F300 && codePoint <= 0x1F64F)
+                || (codePoint >= 0x1F900 && codePoint <= 0x1F9FF)
+                || (codePoint >= 0x20000 && codePoint <= 0x3FFFD)) {
+            return 2;
+        }
+        return 1;
+    }
+
+    // ────── Inspection ──────
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public synchronized int charAt(int row, int col) {
+        return buffer.chars[index(row, col)];
+    }
+
+    public synchronized int foreground(int row, int col) {
+        return buffer.foreground[index(row, col)];
+    }
+
+    public synchronized int background(int row, int col) {
+        return buffer.background[index(row, col)];
+    }
+
+    public synchronized int attributes(int row, int col) {
+        return buffer.attributes[index(row, col)];
+    }
+
+    private int index(int row, int col) {
+        if (row < 1 || row > rows || col < 1 || col > cols) throw new IndexOutOfBoundsException("Cell " + row + "," + col);
+        return (row - 1) * cols + col - 1;
+    }
+
+    /**
+     * The text of a line, without trailing blanks.
+     */
+    public synchronized String line(int row) {
+        StringBuilder text = new StringBuilder(cols);
+        for (int col = 1; col <= cols; col++) {
+            int c = buffer.chars[index(row, col)];
+            if (c != WIDE_TAIL) text.appendCodePoint(c);
+        }
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ' ') end--;
+        text.setLength(end);
+        return text.toString();
+    }
+
+    /**
+     * The text of the whole screen, one line per row.
+     */
+    public synchronized String text() {
+        StringBuilder text = new StringBuilder();
+        for (int row = 1; row <= rows; row++) text.append(line(row)).append('\n');
+        return text.toString();
+    }
+
+    /**
+     * Appends the output that draws rows {@code top} to {@code bottom} of this screen as they are, in colors of the
+     * given depth, to be optimized before it is written. Blanks at the end of a row are erased, not drawn.
+     */
+    public void appendRows(StringBuilder out, int top, int bottom, ColorDepth depth) {
+        appendRect(out, top, 1, bottom, cols, true, depth);
+    }
+
+    /**
+     * Appends the output that draws columns {@code left} to {@code right} of rows {@code top} to {@code bottom} as they
+     * are, like {@link #appendRows}. Blanks at the end of a row are erased to the end of the line when
+     * {@code toLineEnd}, the rectangle then reaching the right edge of the terminal, and drawn otherwise. A double-width
+     * character cut by a side is drawn as a blank.
+     */
+    public synchronized void appendRect(StringBuilder out, int top, int left, int bottom, int right, boolean toLineEnd, ColorDepth depth) {
+        left = Math.max(1, left);
+        int end = Math.min(cols, right);
+        for (int row = Math.max(1, top); row <= Math.min(rows, bottom); row++) {
+            int last = end;
+            if (toLineEnd) {
+                while (last >= left && isBlank(index(row, last))) last--;
+            }
+            Utils.appendCursorTo(out, row, left);
+            int previous = -1;
+            for (int col = left; col <= last; col++) {
+                int cell = index(row, col);
+                int c = buffer.chars[cell];
+                if (c == WIDE_TAIL && col > left) continue;
+                if (previous < 0 || buffer.foreground[cell] != buffer.foreground[previous]
+                        || buffer.background[cell] != buffer.background[previous] || buffer.attributes[cell] != buffer.attributes[previous]) {
+                    appendStyle(out, buffer.foreground[cell], buffer.background[cell], buffer.attributes[cell], depth);
+                }
+                // the character is cut by a side of the rectangle
+                if (c == WIDE_TAIL || col == end && width(c) == 2) out.append(' ');
+                else out.appendCodePoint(c);
+                previous = cell;
+            }
+            out.append(AppTexts.Colors.RESET_COLOR);
+            // after the last column the cursor is still on it, erasing would take its character
+            if (toLineEnd && last < right) out.append(Utils.CLEAR_LINE_TO_END);
+        }
+    }
+
+    private boolean isBlank(int cell) {
+        return buffer.chars[cell] == ' ' && buffer.background[cell] == DEFAULT_COLOR && buffer.attributes[cell] == 0;
+    }
+
+    private static void appendStyle(StringBuilder out, int foreground, int background, int attributes, ColorDepth depth) {
+        out.append(AppTexts.Colors.RESET_COLOR);
+        if ((attributes & BOLD) != 0) out.append("\033[1m");
+        if ((attributes & REVERSE) != 0) out.append("\033[7m");
+        if (foreground != DEFAULT_COLOR) out.append(depth.sgr(foreground >> 16 & 0xFF, foreground >> 8 & 0xFF, foreground & 0xFF, false));
+        if (background != DEFAULT_COLOR) out.append(depth.sgr(background >> 16 & 0xFF, background >> 8 & 0xFF, background & 0xFF, true));
+    }
+
+    /**
+     * True if a rectangle of this screen shows exactly what the same rectangle of {@code other} shows:
+     * same characters, colors and attributes.
+     */
+    public boolean looksLike(VirtualScreen other, int top, int left, int height, int width) {
+        synchronized (this) {
+            synchronized (other) {
+                for (int row = top; row < top + height; row++) {
+                    for (int col = left; col < left + width; col++) {
+                        int a = index(row, col), b = other.index(row, col);
+                        if (buffer.chars[a] != other.buffer.chars[b]
+                                || buffer.foreground[a] != other.buffer.foreground[b]
+                                || buffer.background[a] != other.buffer.background[b]
+                                || buffer.attributes[a] != other.buffer.attributes[b]) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+    }
+
+    public synchronized int cursorRow() {
+        return row;
+    }
+
+    public synchronized int cursorCol() {
+        return col;
+    }
+
+    public synchronized boolean isCursorVisible() {
+        return cursorVisible;
+    }
+
+    public synchronized boolean isAlternateScreen() {
+        return buffer == alternate;
+    }
+
+    public synchronized String title() {
+        return title;
+    }
+
+    // ────── Costs ──────
+
+    /**
+     * Bytes written since the last {@link #resetCounters()}.
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Complete escape sequences (ESC, CSI and OSC) written since the last {@link #resetCounters()}.
+     */
+    public synchronized long escapeSequences() {
+        return escapeSequences;
+    }
+
+    public synchronized long flushes() {
+        return flushes;
+    }
+
+    /**
+     * Characters drawn since the last {@link #resetCounters()}.
+     */
+    public synchronized long printed() {
+        return printed;
+    }
+
+    public synchronized void resetCounters() {
+        bytes = 0;
+        escapeSequences = 0;
+        flushes = 0;
+        printed = 0;
+    }
+}
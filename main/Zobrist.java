@@ -0,0 +1,50 @@
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for the visible state of a Minesweeper board.
+ * Every (cell, visible state) pair has a fixed pseudo-random 64-bit key, and a board hash is the XOR of the keys of its
+ * revealed and flagged cells, so revealing or toggling a single cell updates the hash with one XOR.
+ * Keys only depend on the cell index, which keeps hashes comparable between games of the same board size.
+ */
+public final class Zobrist {
+    // states 0-8 are revealed numbers
+    public static final int FLAG    = 9;
+    public static final int MINE    = 10;
+    public static final int COVERED = 11;
+    private static final int STATES = 12;
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static volatile long[] keys = generate(Config.MineSweeper.MAX_ROW * Config.MineSweeper.MAX_COL);
+
+    private Zobrist() {}
+
+    /**
+     * Returns the key of a cell in a given visible state.
+     *
+     * @param cell  the cell index ({@code row * width + col})
+     * @param state a revealed number (0-8), {@link #FLAG}, {@link #MINE} or {@link #COVERED}
+     */
+    public static long key(int cell, int state) {
+        long[] current = keys;
+        int index = cell * STATES + state;
+        if (index >= current.length) current = grow(cell + 1);
+        return current[index];
+    }
+
+    private static synchronized long[] grow(int cells) {
+        if (cells * STATES > keys.length) {
+            keys = generate(Math.max(cells, keys.length / STATES * 2));
+        }
+        return keys;
+    }
+
+    // keys are drawn sequentially from a fixed seed, so a larger table keeps the keys of the smaller one
+    private static long[] generate(int cells) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        long[] generated = new long[cells * STATES];
+        for (int i = 0; i < generated.length; i++) {
+            generated[i] = random.nextLong();
+        }
+        return generated;
+    }
+}